@@ -4,6 +4,7 @@ import de.tum.in.probmodels.generator.Choice;
 import de.tum.in.probmodels.generator.Generator;
 import de.tum.in.probmodels.graph.Mec;
 import de.tum.in.probmodels.model.*;
+import de.tum.in.probmodels.util.RandomProvider;
 import de.tum.in.probmodels.util.Sample;
 import de.tum.in.probmodels.util.Util;
 import it.unimi.dsi.fastutil.ints.*;
@@ -12,7 +13,7 @@ import prism.Pair;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.stream.Collectors;
 
 /**
@@ -22,8 +23,11 @@ import java.util.stream.Collectors;
  * @param <M>
  */
 public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
+  // Number of successors drawn at once when simulating an action repeatedly
+  private static final int SAMPLE_BATCH_SIZE = 1024;
+
   // A mapping to and from state numbers in partial model to state object in generator.
-  protected final StateToIndex<S> stateMap = new StateToIndex<>();
+  protected final StateToIndex<S> stateMap;
   // All states which are in the partial model and explored
   protected final IntSet exploredStates = new IntOpenHashSet();
   protected final M model;
@@ -31,9 +35,9 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
   protected final boolean removeSelfLoops;
   protected final long timeout;
 
-  // This holds the counts for haw many times every state-action-successor triplet has been sampled. They can be accessed
-  // by first using the stateIndex and then the actionIndex as keys.
-  protected final Int2ObjectMap<ObjectArrayList<Int2LongMap>> stateTransitionCounts = new Int2ObjectOpenHashMap<>();
+  // This holds the counts for haw many times every state-action-successor triplet has been sampled. They are indexed by
+  // the stateIndex and the original (unfiltered) actionIndex.
+  protected final TransitionCounts stateTransitionCounts = new TransitionCounts();
   // This holds the real set of actions for the model. Successors are sampled using these distributions.
   protected final Int2ObjectMap<ObjectArrayList<Action>> stateActions = new Int2ObjectOpenHashMap<>();
 
@@ -51,7 +55,18 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
 
   protected int numTrans = 0;
 
-  public Int2ObjectMap<ObjectArrayList<Int2LongMap>> getStateTransitionCounts() {
+  // States whose filtered actions may have changed since the last call of pollModifiedStates(), either because an
+  // action crossed the actionCountFilter or a new successor of an action has been sampled.
+  private final IntSet modifiedStates = new IntOpenHashSet();
+  // The actionCountFilter at the last call of pollModifiedStates(), NaN if it has not been called yet.
+  private double polledActionCountFilter = Double.NaN;
+
+  // Actions (by original index) whose counts changed through updateCounts() after their learned distribution in the
+  // model was last built. Rebuilding the distribution for every single sample is expensive, so this is done lazily
+  // when the choices of the state are read, see materializeDistributions().
+  private final Int2ObjectMap<IntSet> staleActions = new Int2ObjectOpenHashMap<>();
+
+  public TransitionCounts getStateTransitionCounts() {
     return stateTransitionCounts;
   }
 
@@ -65,6 +80,7 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
     this.generator = generator;
     this.removeSelfLoops = removeSelfLoops;
     this.timeout = timeout;
+    this.stateMap = generator.stateIndex();
 
     initializeVars();
     IntList initialStateIds = new IntArrayList();
@@ -85,8 +101,12 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
     return IntSets.unmodifiable(exploredStates);
   }
 
+  /**
+   * Returns the partial model with all learned distributions up to date.
+   */
   @Override
   public M model() {
+    materializeDistributions();
     return model;
   }
 
@@ -107,15 +127,19 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
 
 
   /**
-   * Update sampled counts for a state-action-successor triplet. If update is true, the learned distributions are
-   * immediately updated. Returns whether a new action has been sampled more than actionCountFilter number of times.
+   * Update sampled counts for a state-action-successor triplet. The learned distribution of the action is only rebuilt
+   * once it is read again. Returns whether a new action has been sampled more than actionCountFilter number of times.
    */
   public boolean updateCounts(int state, int actionIndex, int successor){
     int originalActionIndex;
     originalActionIndex = actionCountFilterActive ? unfilteredActionIndexMap.get(state).get(actionIndex) : actionIndex;
 
     long newTransitionCount = incrementTransitionCount(state, originalActionIndex, successor);
-    updateStateActionDistributionInModel(state, actionIndex, originalActionIndex);
+    if (actionCountFilterActive) {
+      updateStateActionDistributionInModel(state, actionIndex, originalActionIndex);
+    } else {
+      staleActions.computeIfAbsent(state, k -> new IntOpenHashSet()).add(originalActionIndex);
+    }
 
     boolean newTrans = false;
 
@@ -126,6 +150,7 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
     long actionCount = getActionCounts(state, actionIndex);
     if(actionCount>actionCountFilter && actionCount-1<=actionCountFilter){
       newTrans = true;
+      markModified(state);
     }
 
     return newTrans;
@@ -138,31 +163,30 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
     if (actionCountFilterActive) {
       actionIndex = unfilteredActionIndexMap.get(stateId).get(actionIndex);
     }
-    Int2LongMap transitionCounts = stateTransitionCounts.get(stateId).get(actionIndex);
-    return transitionCounts.values().stream().mapToLong(s -> s).sum();
+    return stateTransitionCounts.total(stateId, actionIndex);
   }
 
   /**
-   * @return Returns the distribution of an action for a state from the transitionCounts.
+   * @param originalActionIndex: index of the action in the unfiltered model.
+   * @return Returns the distribution of an action for a state from the transition counts.
    */
-  protected Distribution getDistributionFromCounts(int stateId, Int2LongMap transitionCounts){
+  protected Distribution getDistributionFromCounts(int stateId, int originalActionIndex){
 
-    double actionCounts = transitionCounts.values().stream().mapToLong(s -> s).sum();
+    double actionCounts = stateTransitionCounts.total(stateId, originalActionIndex);
 
     DistributionBuilder builder = Distributions.defaultBuilder();
 
-    boolean skippedAny = false;
-    for (int target : transitionCounts.keySet()) {
-      double probability = transitionCounts.get(target) / actionCounts;
+    boolean[] skippedAny = {false};
+    stateTransitionCounts.forEachSuccessor(stateId, originalActionIndex, (target, count) -> {
       if (removeSelfLoops && target == stateId) {
-        skippedAny = true;
+        skippedAny[0] = true;
       } else {
-        builder.add(target, probability);
+        builder.add(target, count / actionCounts);
       }
-    }
+    });
 
     // scale the distribution if any values in the original support were skipped
-    Distribution distribution = skippedAny ? builder.scaled() : builder.build();
+    Distribution distribution = skippedAny[0] ? builder.scaled() : builder.build();
     assert distribution.isEmpty() || Util.isOne(distribution.sum()) : distribution;
     return distribution;
 
@@ -177,7 +201,6 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
     S state = stateMap.getState(stateId);
     assert state != null;
 
-    ObjectArrayList<Int2LongMap> stateActionCounts = new ObjectArrayList<>();
     ObjectArrayList<Action> stateChoices = new ObjectArrayList<>();
 
     for (Choice<S> choice : generator.choices(state)) {
@@ -199,18 +222,16 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
       // Real distribution added to stateChoices
       stateChoices.add(Action.of(distribution, choice.label()));
 
-      Int2LongMap actionCounts = new Int2LongOpenHashMap();
-      stateActionCounts.add(actionCounts);
-
       // Empty distribution added to model
       DistributionBuilder emptyBuilder = Distributions.defaultBuilder();
       model.addChoice(stateId, Action.of(emptyBuilder.build(), choice.label()));
     }
 
-    stateTransitionCounts.put(stateId, stateActionCounts);
+    stateTransitionCounts.addState(stateId, stateChoices.size());
     stateActions.put(stateId, stateChoices);
 
     exploredActionsCount += stateChoices.size();
+    markModified(stateId);
 
     return state;
   }
@@ -251,21 +272,39 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
     for(int succ: action.distribution().support()) {
       actionTransitionCounts.put(succ, 0);
     }
-    while (actionCounts<requiredSamples) {
-      int succ = action.distribution().sample();
-      actionTransitionCounts.put(succ, actionTransitionCounts.get(succ)+1);
-      actionCounts++;
-    }
+    sampleRepeatedly(action.distribution(), missingSamples(actionCounts, requiredSamples), actionTransitionCounts);
     for(int succ: action.distribution().support()) {
-      long currValue = stateTransitionCounts.get(stateId).get(realIndex).get(succ);
-      stateTransitionCounts.get(stateId).get(realIndex)
-              .put(succ, currValue+actionTransitionCounts.get(succ));
+      stateTransitionCounts.add(stateId, realIndex, succ, actionTransitionCounts.get(succ));
     }
     List<Action> currActions = model.getActions(stateId);
-    Distribution distribution = getDistributionFromCounts(stateId, stateTransitionCounts.get(stateId).get(realIndex));
+    Distribution distribution = getDistributionFromCounts(stateId, realIndex);
     currActions.set(filteredIndex, Action.of(distribution, action.label()));
 
     model.setActions(stateId, currActions);
+    markModified(stateId);
+  }
+
+  // The number of samples needed to get from actionCounts to at least requiredSamples.
+  protected static long missingSamples(long actionCounts, double requiredSamples) {
+    return actionCounts < requiredSamples ? (long) Math.ceil(requiredSamples - actionCounts) : 0;
+  }
+
+  /**
+   * Samples the distribution the given number of times in batches and adds the sampled successors to successorCounts,
+   * which has to contain all successors of the distribution.
+   */
+  protected static void sampleRepeatedly(Distribution distribution, long samples, Int2IntMap successorCounts) {
+    int[] sampledSuccessors = new int[(int) Math.min(SAMPLE_BATCH_SIZE, samples)];
+    long remaining = samples;
+    while (remaining > 0) {
+      int batch = (int) Math.min(sampledSuccessors.length, remaining);
+      distribution.sample(batch, sampledSuccessors);
+      for (int i = 0; i < batch; i++) {
+        int succ = sampledSuccessors[i];
+        successorCounts.put(succ, successorCounts.get(succ)+1);
+      }
+      remaining -= batch;
+    }
   }
 
   /**
@@ -306,7 +345,7 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
 
     int simulationCount = 0;
     int currentState = mec.states.firstInt();
-    Random random = new Random();
+    SplittableRandom random = RandomProvider.current();
 
     while (simulationCount < nSimulations && !isTimeout()) {
       List<Integer> intActions = listActions.get(currentState);
@@ -340,7 +379,7 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
     }
 
     int currentState = mec.states.firstInt();
-    Random random = new Random();
+    SplittableRandom random = RandomProvider.current();
 
     Pair<Integer, Integer> leastStateAction = getLeastVisitedStateAction(mec);
     int leastVisitedState = leastStateAction.first;
@@ -379,6 +418,7 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
   protected void onSimulationEnded(Mec mec) {
     // We update the distribution as per the counts
     for (int state : mec.states) {
+      markModified(state);
       for (int action : mec.actions.get(state)) {
         int originalActionIndex = unfilteredActionIndexMap.get(state).get(action);
         updateStateActionDistributionInModel(state, action, originalActionIndex);
@@ -411,6 +451,7 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
    * For grey box, we only keep actions that has all of its successors visited
    */
   public void activateActionCountFilter(){
+    materializeDistributions();
 
     for (int i: exploredStates) {
       unfilteredActionsCache.put(i, model.getActions(i));
@@ -473,6 +514,7 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
   public List<Distribution> getChoices(int stateId) {
     assert isExploredState(stateId);
 
+    materializeDistributions(stateId);
     return model.getChoices(stateId);
   }
 
@@ -485,6 +527,7 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
   public List<Action> getActions(int stateId) {
     assert isExploredState(stateId);
 
+    materializeDistributions(stateId);
     return model.getActions(stateId);
   }
 
@@ -515,20 +558,81 @@ public class BlackExplorer<S, M extends Model> implements Explorer<S, M>{
   }
 
   private long incrementTransitionCount(int state, int actionIndex, int successor) {
-    Int2LongMap transitionCounts = stateTransitionCounts.get(state).get(actionIndex);
-
-    long newTransitionCount = transitionCounts.getOrDefault(successor, 0) + 1;
-    transitionCounts.put(successor, newTransitionCount);
+    long newTransitionCount = stateTransitionCounts.increment(state, actionIndex, successor);
+    if (newTransitionCount == 1) {
+      markModified(state);
+    }
     return newTransitionCount;
   }
 
-  private void updateStateActionDistributionInModel(int state, int actionIndex, int originalActionIndex) {
-    Int2LongMap transitionCounts = stateTransitionCounts.get(state).get(originalActionIndex);
+  protected void markModified(int state) {
+    modifiedStates.add(state);
+  }
 
+  /**
+   * Returns the states whose filtered actions may have changed since the previous call and resets the tracking. This
+   * includes newly explored states, states with new successors and, if the actionCountFilter has changed in between,
+   * all states with an action whose count lies between the old and the new filter. The first call returns all
+   * explored states.
+   */
+  public IntSet pollModifiedStates() {
+    materializeDistributions();
+    IntSet modified = new IntOpenHashSet(modifiedStates);
+    modifiedStates.clear();
+
+    if (Double.isNaN(polledActionCountFilter)) {
+      modified.addAll(exploredStates);
+    } else if (polledActionCountFilter != actionCountFilter) {
+      double lowerFilter = Math.min(polledActionCountFilter, actionCountFilter);
+      double upperFilter = Math.max(polledActionCountFilter, actionCountFilter);
+      for (int state : exploredStates) {
+        for (int action = 0; action < stateTransitionCounts.numActions(state); action++) {
+          long actionCount = stateTransitionCounts.total(state, action);
+          if (actionCount > lowerFilter && actionCount <= upperFilter) {
+            modified.add(state);
+            break;
+          }
+        }
+      }
+    }
+    polledActionCountFilter = actionCountFilter;
+    return modified;
+  }
+
+  /**
+   * Rebuilds the learned distributions of all actions sampled since they were last built.
+   */
+  public void materializeDistributions() {
+    if (staleActions.isEmpty()) {
+      return;
+    }
+    for (int state : new IntArrayList(staleActions.keySet())) {
+      materializeDistributions(state);
+    }
+  }
+
+  private void materializeDistributions(int state) {
+    IntSet actions = staleActions.remove(state);
+    if (actions == null) {
+      return;
+    }
+    // Actions only become stale while the actionCountFilter is inactive, and the filter materializes all of them when
+    // it is activated, so the model indices equal the original indices here.
+    assert !actionCountFilterActive;
+
+    List<Action> currActions = model.getActions(state);
+    for (int actionIndex : actions) {
+      Distribution distribution = getDistributionFromCounts(state, actionIndex);
+      currActions.set(actionIndex, Action.of(distribution, currActions.get(actionIndex).label()));
+    }
+    model.setActions(state, currActions);
+  }
+
+  private void updateStateActionDistributionInModel(int state, int actionIndex, int originalActionIndex) {
     List<Action> currActions = model.getActions(state);
     Action currAction = currActions.get(actionIndex);
 
-    Distribution distribution = getDistributionFromCounts(state, transitionCounts);
+    Distribution distribution = getDistributionFromCounts(state, originalActionIndex);
     currActions.set(actionIndex, Action.of(distribution, currAction.label()));
 
     model.setActions(state, currActions);
@@ -32,7 +32,7 @@ public class CTMDPBlackExplorer<S, M extends Model> extends BlackExplorer<S, M>{
   @Override
   public M model() {
     // Write uniformization code here.
-    return model;
+    return super.model();
   }
 
   /**
@@ -43,12 +43,11 @@ public class CTMDPBlackExplorer<S, M extends Model> extends BlackExplorer<S, M>{
     if (actionCountFilterActive) {
       actionIndex = unfilteredActionIndexMap.get(state).get(actionIndex);
     }
-    Int2LongMap transitionCounts = stateTransitionCounts.get(state).get(actionIndex);
-    transitionCounts.put(successor, transitionCounts.getOrDefault(successor, 0)+1);
+    long newTransitionCount = stateTransitionCounts.increment(state, actionIndex, successor);
 
     boolean newTrans = false;
 
-    if (transitionCounts.get(successor)==1){
+    if (newTransitionCount==1){
       numTrans++;
     }
 
@@ -61,7 +60,7 @@ public class CTMDPBlackExplorer<S, M extends Model> extends BlackExplorer<S, M>{
       List<Action> currActions = model.getActions(state);
       Action currAction = currActions.get(actionIndex);
 
-      Distribution distribution = getDistributionFromCounts(state, transitionCounts);
+      Distribution distribution = getDistributionFromCounts(state, actionIndex);
       currActions.set(actionIndex, Action.of(distribution, currAction.label()));
 
       model.setActions(state, currActions);
@@ -104,23 +103,21 @@ public class CTMDPBlackExplorer<S, M extends Model> extends BlackExplorer<S, M>{
     for(int succ: action.distribution().support()) {
       actionTransitionCounts.put(succ, 0);
     }
-    while (actionCounts<requiredSamples) {
-      int succ = action.distribution().sample();
-      actionTransitionCounts.put(succ, actionTransitionCounts.get(succ)+1);
+    long missingSamples = missingSamples(actionCounts, requiredSamples);
+    sampleRepeatedly(action.distribution(), missingSamples, actionTransitionCounts);
+    for (long i = 0; i < missingSamples; i++) {
       double stayTime = getStayTime(stateId, realIndex);
       accumulateStayTime(stateId, realIndex, stayTime);
-      actionCounts++;
     }
     for(int succ: action.distribution().support()) {
-      long currValue = stateTransitionCounts.get(stateId).get(realIndex).get(succ);
-      stateTransitionCounts.get(stateId).get(realIndex)
-          .put(succ, currValue+actionTransitionCounts.get(succ));
+      stateTransitionCounts.add(stateId, realIndex, succ, actionTransitionCounts.get(succ));
     }
     List<Action> currActions = model.getActions(stateId);
-    Distribution distribution = getDistributionFromCounts(stateId, stateTransitionCounts.get(stateId).get(realIndex));
+    Distribution distribution = getDistributionFromCounts(stateId, realIndex);
     currActions.set(filteredIndex, Action.of(distribution, action.label()));
 
     model.setActions(stateId, currActions);
+    markModified(stateId);
   }
 
   @Override
@@ -140,7 +137,6 @@ public class CTMDPBlackExplorer<S, M extends Model> extends BlackExplorer<S, M>{
     S state = stateMap.getState(stateId);
     assert state != null;
 
-    ObjectArrayList<Int2LongMap> stateActionCounts = new ObjectArrayList<>();
     ObjectArrayList<Action> stateChoices = new ObjectArrayList<>();
 
     Int2ObjectMap<Pair<Double, Long>> stateTransitionTimes = new Int2ObjectOpenHashMap<>();
@@ -174,20 +170,19 @@ public class CTMDPBlackExplorer<S, M extends Model> extends BlackExplorer<S, M>{
       stateChoices.add(Action.of(distribution, choice.label()));
       stateTransitionRates.add(rateMap);
 
-      stateActionCounts.add(new Int2LongOpenHashMap());
-
       // Empty distribution added to model
       DistributionBuilder emptyBuilder = Distributions.defaultBuilder();
       model.addChoice(stateId, Action.of(emptyBuilder.build(), choice.label()));
     }
 
-    stateTransitionCounts.put(stateId, stateActionCounts);
+    stateTransitionCounts.addState(stateId, stateChoices.size());
     stateActions.put(stateId, stateChoices);
 
     transitionTimes.put(stateId, stateTransitionTimes);
     this.stateTransitionRates.put(stateId, stateTransitionRates);
 
     exploredActionsCount += stateChoices.size();
+    markModified(stateId);
 
     return state;
   }
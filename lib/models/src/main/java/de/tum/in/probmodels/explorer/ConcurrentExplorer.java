@@ -0,0 +1,269 @@
+package de.tum.in.probmodels.explorer;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.Lists;
+import de.tum.in.probmodels.generator.Choice;
+import de.tum.in.probmodels.generator.Generator;
+import de.tum.in.probmodels.generator.GeneratorPool;
+import de.tum.in.probmodels.model.Action;
+import de.tum.in.probmodels.model.Distribution;
+import de.tum.in.probmodels.model.Distributions;
+import de.tum.in.probmodels.model.Model;
+import de.tum.in.probmodels.model.StateToIndex;
+import de.tum.in.probmodels.util.ConcurrentChunkedArray;
+import de.tum.in.probmodels.util.Util;
+import it.unimi.dsi.fastutil.ints.AbstractIntIterator;
+import it.unimi.dsi.fastutil.ints.AbstractIntSet;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntCollection;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.objects.Object2DoubleMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Explorer which may be used by several threads at once. The actions of each state are published
+ * exactly once; a thread requesting the exploration of a state which is currently explored by
+ * another thread waits for that exploration instead of repeating it.
+ *
+ * <p>The generator is called without any synchronization, so it has to be thread-safe, e.g. a
+ * {@link GeneratorPool}; successors of different states then are generated in parallel. States are
+ * numbered by the index of the generator (see {@link Generator#stateIndex()}), which is guarded by
+ * a lock taken once per explored state to resolve all its successors. Writes to the underlying
+ * model are synchronized on the model, readers of {@link #model()} have to synchronize on it as
+ * well while other threads explore. The accessors of this class itself do not need any
+ * synchronization. The actions of a state may be requested as soon as its exploration started;
+ * if another thread is still exploring it, the call waits for the exploration to finish. Requesting
+ * the actions of a state whose exploration has not been started is an error.</p>
+ */
+public class ConcurrentExplorer<S, M extends Model> implements Explorer<S, M> {
+  // Guarded by itself
+  private final StateToIndex<S> stateMap;
+  // For each state: null if unexplored, a future while it is being explored and the immutable list
+  // of its actions once explored
+  private final ConcurrentChunkedArray<Object> stateActions = new ConcurrentChunkedArray<>();
+  private final AtomicInteger exploredStateCount = new AtomicInteger();
+  private final IntSet exploredStates = new ExploredStates();
+  private final M model;
+  private final Generator<S> generator;
+  private final boolean removeSelfLoops;
+
+  public static <S, M extends Model> ConcurrentExplorer<S, M> of(M model, Generator<S> generator,
+      boolean removeSelfLoops) {
+    ConcurrentExplorer<S, M> explorer = new ConcurrentExplorer<>(model, generator, removeSelfLoops);
+    IntList initialStateIds = new IntArrayList();
+    for (S initialState : generator.initialStates()) {
+      int stateId = explorer.getStateId(initialState);
+      explorer.exploreState(stateId);
+      initialStateIds.add(stateId);
+    }
+    synchronized (model) {
+      model.setInitialStates(initialStateIds);
+    }
+    return explorer;
+  }
+
+  ConcurrentExplorer(M model, Generator<S> generator, boolean removeSelfLoops) {
+    this.model = model;
+    this.generator = generator;
+    this.removeSelfLoops = removeSelfLoops;
+    this.stateMap = generator.stateIndex();
+  }
+
+  @Override
+  public IntSet exploredStates() {
+    return exploredStates;
+  }
+
+  @Override
+  public M model() {
+    return model;
+  }
+
+  @Override
+  public S exploreState(int stateId) {
+    S state = getState(stateId);
+    assert state != null;
+
+    Object current = stateActions.get(stateId);
+    if (current == null) {
+      CompletableFuture<List<Action>> exploration = new CompletableFuture<>();
+      if (stateActions.compareAndSet(stateId, null, exploration)) {
+        try {
+          List<Action> actions = computeActions(stateId, state);
+          synchronized (model) {
+            // All successors have been assigned an id by now
+            int numStates = stateCount();
+            if (model.getNumStates() < numStates) {
+              model.addStates(numStates - model.getNumStates());
+            }
+            actions.forEach(action -> model.addChoice(stateId, action));
+          }
+          stateActions.set(stateId, actions);
+          exploredStateCount.incrementAndGet();
+          exploration.complete(actions);
+        } catch (RuntimeException e) {
+          stateActions.set(stateId, null);
+          exploration.completeExceptionally(e);
+          throw e;
+        }
+        return state;
+      }
+      current = stateActions.get(stateId);
+    }
+    if (current instanceof CompletableFuture<?>) {
+      // Another thread is exploring this state, wait until its actions are published
+      ((CompletableFuture<?>) current).join();
+    }
+    return state;
+  }
+
+  private List<Action> computeActions(int stateId, S state) {
+    // The expensive part, not synchronized
+    Collection<Choice<S>> choices = generator.choices(state);
+
+    List<Action> actions = new ArrayList<>(choices.size());
+    synchronized (stateMap) {
+      for (Choice<S> choice : choices) {
+        var builder = Distributions.defaultBuilder();
+
+        boolean skippedAny = false;
+        for (Object2DoubleMap.Entry<S> transition : choice.transitions().object2DoubleEntrySet()) {
+          int target = getOrAddStateId(transition.getKey());
+          double probability = transition.getDoubleValue();
+          if (removeSelfLoops && target == stateId) {
+            skippedAny = true;
+          } else {
+            builder.add(target, probability);
+          }
+        }
+        // scale the distribution if any values in the original support were skipped
+        Distribution distribution = skippedAny ? builder.scaled() : builder.build();
+        assert distribution.isEmpty() || Util.isOne(distribution.sum()) : distribution;
+        actions.add(Action.of(distribution, choice.label()));
+      }
+    }
+    return Collections.unmodifiableList(actions);
+  }
+
+  // Must be called while holding the lock of the state map
+  private int getOrAddStateId(S state) {
+    int stateId = stateMap.getStateId(state);
+    if (stateId == -1) {
+      stateId = stateMap.size();
+      stateMap.addState(state, stateId);
+    }
+    return stateId;
+  }
+
+  private int stateCount() {
+    synchronized (stateMap) {
+      return stateMap.size();
+    }
+  }
+
+  @Override
+  public boolean isExploredState(int stateId) {
+    return stateActions.get(stateId) instanceof List<?>;
+  }
+
+  @Override
+  public final int getStateId(S state) {
+    assert state != null;
+    synchronized (stateMap) {
+      return getOrAddStateId(state);
+    }
+  }
+
+  @Override
+  public IntCollection initialStates() {
+    return model.getInitialStates();
+  }
+
+  @Override
+  public int exploredStateCount() {
+    return exploredStateCount.get();
+  }
+
+  @Override
+  public List<Distribution> getChoices(int stateId) {
+    return Lists.transform(getActions(stateId), Action::distribution);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<Action> getActions(int stateId) {
+    Object actions = stateActions.get(stateId);
+    if (actions instanceof CompletableFuture<?>) {
+      // Another thread is exploring this state, wait until its actions are published
+      return ((CompletableFuture<List<Action>>) actions).join();
+    }
+    checkState(actions != null, "State %s has not been explored", stateId);
+    return (List<Action>) actions;
+  }
+
+  @Override
+  public S getState(int stateId) {
+    synchronized (stateMap) {
+      return stateMap.getState(stateId);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("ConcurrentExplorer(%s, %s, %s)", model.getClass(), generator,
+        removeSelfLoops ? "inline" : "normal");
+  }
+
+  // Read-only view on the explored states
+  private final class ExploredStates extends AbstractIntSet {
+    @Override
+    public boolean contains(int k) {
+      return k >= 0 && isExploredState(k);
+    }
+
+    @Override
+    public int size() {
+      return exploredStateCount.get();
+    }
+
+    @Override
+    public IntIterator iterator() {
+      return new AbstractIntIterator() {
+        private final int bound = stateCount();
+        private int next = advance(0);
+
+        private int advance(int from) {
+          int state = from;
+          while (state < bound && !isExploredState(state)) {
+            state += 1;
+          }
+          return state;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return next < bound;
+        }
+
+        @Override
+        public int nextInt() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          int current = next;
+          next = advance(next + 1);
+          return current;
+        }
+      };
+    }
+  }
+}
@@ -15,11 +15,13 @@ import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.ints.IntSets;
 import it.unimi.dsi.fastutil.objects.Object2DoubleMap;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class DefaultExplorer<S, M extends Model> implements Explorer<S, M> {
   // A mapping to and from state numbers in partial model to state object in generator.
-  private final StateToIndex<S> stateMap = new StateToIndex<>();
+  private final StateToIndex<S> stateMap;
   // All states which are in the partial model and explored
   private final IntSet exploredStates = new IntOpenHashSet();
   private final M model;
@@ -44,6 +46,7 @@ public class DefaultExplorer<S, M extends Model> implements Explorer<S, M> {
     this.model = model;
     this.generator = generator;
     this.removeSelfLoops = removeSelfLoops;
+    this.stateMap = generator.stateIndex();
   }
 
   @Override
@@ -66,7 +69,34 @@ public class DefaultExplorer<S, M extends Model> implements Explorer<S, M> {
     S state = stateMap.getState(stateId);
     assert state != null;
 
-    for (Choice<S> choice : generator.choices(state)) {
+    addChoices(stateId, generator.choices(state));
+    return state;
+  }
+
+  @Override
+  // Explores a batch of states. The successors of all states are generated at once, which the
+  // generator may parallelize, and then added in the given order, so the numbering of new states
+  // does not depend on the scheduling.
+  public void exploreStates(IntCollection stateIds) {
+    int[] frontier = stateIds.toIntArray();
+    List<S> states = new ArrayList<>(frontier.length);
+    for (int stateId : frontier) {
+      assert stateMap.check(stateId) && !isExploredState(stateId);
+      S state = stateMap.getState(stateId);
+      assert state != null;
+      states.add(state);
+    }
+
+    List<Collection<Choice<S>>> choices = generator.choices(states);
+    for (int i = 0; i < frontier.length; i++) {
+      boolean added = exploredStates.add(frontier[i]);
+      assert added : "Duplicate state " + frontier[i];
+      addChoices(frontier[i], choices.get(i));
+    }
+  }
+
+  private void addChoices(int stateId, Collection<Choice<S>> choices) {
+    for (Choice<S> choice : choices) {
       var builder = Distributions.defaultBuilder();
 
       boolean skippedAny = false;
@@ -84,7 +114,6 @@ public class DefaultExplorer<S, M extends Model> implements Explorer<S, M> {
       assert distribution.isEmpty() || Util.isOne(distribution.sum()) : distribution;
       model.addChoice(stateId, Action.of(distribution, choice.label()));
     }
-    return state;
   }
 
   @Override
@@ -4,6 +4,7 @@ import de.tum.in.probmodels.model.Action;
 import de.tum.in.probmodels.model.Distribution;
 import explicit.Model;
 import it.unimi.dsi.fastutil.ints.IntCollection;
+import it.unimi.dsi.fastutil.ints.IntIterator;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import java.util.List;
 import prism.PrismException;
@@ -13,6 +14,15 @@ public interface Explorer<S, M extends Model> {
 
   S exploreState(int stateId) throws PrismException;
 
+  // Explores all given states, which have to be known and unexplored. The resulting model is the
+  // same as if the states were explored one after another in iteration order.
+  default void exploreStates(IntCollection stateIds) throws PrismException {
+    IntIterator iterator = stateIds.iterator();
+    while (iterator.hasNext()) {
+      exploreState(iterator.nextInt());
+    }
+  }
+
   boolean isExploredState(int stateId);
 
   List<Action> getActions(int stateId);
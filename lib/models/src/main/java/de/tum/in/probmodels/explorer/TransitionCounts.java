@@ -0,0 +1,160 @@
+package de.tum.in.probmodels.explorer;
+
+import java.util.Arrays;
+
+/**
+ * Counts how often each state-action-successor triplet has been sampled. States are indexed
+ * directly by their id, actions by their index in the original model. Every state-action pair
+ * keeps its total count, so the number of samples of an action is available in constant time, and
+ * a small open-addressed table from successor to count, which avoids boxing and the overhead of a
+ * full hash map for the typically very few successors of an action.
+ */
+public final class TransitionCounts {
+  private static final ActionCounts[] NO_ACTIONS = new ActionCounts[0];
+
+  // Counts of each action of a state, null if the state has not been added yet
+  private ActionCounts[][] counts = new ActionCounts[0][];
+
+  @FunctionalInterface
+  public interface SuccessorCountConsumer {
+    void accept(int successor, long count);
+  }
+
+  // Adds a state with the given number of actions, all counts are zero.
+  public void addState(int state, int numActions) {
+    if (state >= counts.length) {
+      counts = Arrays.copyOf(counts, Math.max(state + 1, counts.length * 2));
+    }
+    ActionCounts[] actions = numActions == 0 ? NO_ACTIONS : new ActionCounts[numActions];
+    for (int action = 0; action < numActions; action++) {
+      actions[action] = new ActionCounts();
+    }
+    counts[state] = actions;
+  }
+
+  public boolean contains(int state) {
+    return state < counts.length && counts[state] != null;
+  }
+
+  public int numActions(int state) {
+    return counts[state].length;
+  }
+
+  // Increments the count of the triplet by one and returns the new count.
+  public long increment(int state, int action, int successor) {
+    return counts[state][action].add(successor, 1L);
+  }
+
+  // Increments the count of the triplet by the given amount and returns the new count.
+  public long add(int state, int action, int successor, long count) {
+    return counts[state][action].add(successor, count);
+  }
+
+  public long get(int state, int action, int successor) {
+    return counts[state][action].get(successor);
+  }
+
+  // Returns the number of times the action of the state has been sampled.
+  public long total(int state, int action) {
+    return counts[state][action].total;
+  }
+
+  // Returns the number of distinct successors sampled for the action of the state.
+  public int successorCount(int state, int action) {
+    return counts[state][action].size;
+  }
+
+  public void forEachSuccessor(int state, int action, SuccessorCountConsumer consumer) {
+    ActionCounts actionCounts = counts[state][action];
+    int[] successors = actionCounts.successors;
+    long[] successorCounts = actionCounts.counts;
+    for (int i = 0; i < successors.length; i++) {
+      if (successors[i] != ActionCounts.EMPTY) {
+        consumer.accept(successors[i], successorCounts[i]);
+      }
+    }
+  }
+
+  // Linear probing table from successor to count, the capacity is always a power of two.
+  private static final class ActionCounts {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int[] EMPTY_SUCCESSORS = new int[0];
+    private static final long[] EMPTY_COUNTS = new long[0];
+
+    private int[] successors = EMPTY_SUCCESSORS;
+    private long[] counts = EMPTY_COUNTS;
+    private int size = 0;
+    private long total = 0L;
+
+    private static int slot(int successor, int mask) {
+      // Mix the bits, successor ids of an action are often close to each other
+      int hash = successor * 0x9E3779B9;
+      return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    long get(int successor) {
+      if (size == 0) {
+        return 0L;
+      }
+      int mask = successors.length - 1;
+      int slot = slot(successor, mask);
+      while (successors[slot] != EMPTY) {
+        if (successors[slot] == successor) {
+          return counts[slot];
+        }
+        slot = (slot + 1) & mask;
+      }
+      return 0L;
+    }
+
+    long add(int successor, long count) {
+      assert successor >= 0 && count >= 0;
+      total += count;
+      if (successors.length == 0) {
+        successors = new int[INITIAL_CAPACITY];
+        Arrays.fill(successors, EMPTY);
+        counts = new long[INITIAL_CAPACITY];
+      }
+
+      int mask = successors.length - 1;
+      int slot = slot(successor, mask);
+      while (successors[slot] != EMPTY) {
+        if (successors[slot] == successor) {
+          counts[slot] += count;
+          return counts[slot];
+        }
+        slot = (slot + 1) & mask;
+      }
+
+      successors[slot] = successor;
+      counts[slot] = count;
+      size += 1;
+      // Keep the load factor at most 1/2
+      if (2 * size > successors.length) {
+        grow();
+      }
+      return count;
+    }
+
+    private void grow() {
+      int[] oldSuccessors = successors;
+      long[] oldCounts = counts;
+      int capacity = oldSuccessors.length * 2;
+      int mask = capacity - 1;
+      successors = new int[capacity];
+      Arrays.fill(successors, EMPTY);
+      counts = new long[capacity];
+      for (int i = 0; i < oldSuccessors.length; i++) {
+        if (oldSuccessors[i] != EMPTY) {
+          int slot = slot(oldSuccessors[i], mask);
+          while (successors[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+          }
+          successors[slot] = oldSuccessors[i];
+          counts[slot] = oldCounts[i];
+        }
+      }
+    }
+  }
+}
@@ -1,9 +1,28 @@
 package de.tum.in.probmodels.generator;
 
+import de.tum.in.probmodels.model.DefaultStateToIndex;
+import de.tum.in.probmodels.model.StateToIndex;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 public interface Generator<S> {
   Collection<S> initialStates();
 
   Collection<Choice<S>> choices(S state);
+
+  // Computes the choices of all given states, listed in the same order. Implementations may
+  // compute them concurrently, the default computes them one after another.
+  default List<Collection<Choice<S>>> choices(List<S> states) {
+    List<Collection<Choice<S>>> choices = new ArrayList<>(states.size());
+    for (S state : states) {
+      choices.add(choices(state));
+    }
+    return choices;
+  }
+
+  // Creates an empty index for the states of this generator, used by the explorers.
+  default StateToIndex<S> stateIndex() {
+    return new DefaultStateToIndex<>();
+  }
 }
@@ -0,0 +1,103 @@
+package de.tum.in.probmodels.generator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import de.tum.in.probmodels.model.StateToIndex;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Generator which keeps one delegate generator per thread, so that successors can be computed by
+ * several threads at once. This is required for PRISM, since a {@code ModulesFileModelGenerator}
+ * stores the currently explored state and thus cannot be shared.
+ *
+ * <p>Batches of states passed to {@link #choices(List)} are expanded by the workers of this pool.
+ * The delegates have to return choices which do not depend on their internal state after the call,
+ * which is the case for all {@link PrismGenerator}s, as they copy the transitions into a map.</p>
+ *
+ * <p>The delegates are created lazily by the threads using the pool, including the calling thread,
+ * and are all released by {@link #close()}. The pool must not be used afterwards.</p>
+ */
+public final class GeneratorPool<S> implements Generator<S>, AutoCloseable {
+  private final Supplier<? extends Generator<S>> factory;
+  // Not a ThreadLocal, since those cannot be cleared for other threads on close
+  private final Map<Thread, Generator<S>> generators = new ConcurrentHashMap<>();
+  private final ForkJoinPool workers;
+
+  public GeneratorPool(Supplier<? extends Generator<S>> factory, int threads) {
+    checkArgument(threads > 0, "Need at least one thread, got %s", threads);
+    this.factory = factory;
+    this.workers = new ForkJoinPool(threads);
+  }
+
+  private Generator<S> generator() {
+    checkState(!workers.isShutdown(), "Generator pool is closed");
+    // Only the current thread writes its entry, hence there is no race between get and put
+    Thread thread = Thread.currentThread();
+    Generator<S> generator = generators.get(thread);
+    if (generator == null) {
+      generator = factory.get();
+      generators.put(thread, generator);
+    }
+    return generator;
+  }
+
+  public int threads() {
+    return workers.getParallelism();
+  }
+
+  @Override
+  public Collection<S> initialStates() {
+    return generator().initialStates();
+  }
+
+  @Override
+  public Collection<Choice<S>> choices(S state) {
+    return generator().choices(state);
+  }
+
+  @Override
+  public List<Collection<Choice<S>>> choices(List<S> states) {
+    if (states.size() <= 1 || workers.getParallelism() == 1) {
+      return Generator.super.choices(states);
+    }
+    // The stream is ordered, hence the result lists the choices in the order of the given states
+    try {
+      return workers.submit(() -> states.parallelStream()
+          .map(this::choices)
+          .collect(Collectors.toList())).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  @Override
+  public StateToIndex<S> stateIndex() {
+    return generator().stateIndex();
+  }
+
+  @Override
+  public void close() {
+    workers.shutdown();
+    generators.clear();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("GeneratorPool(%d, %s)", workers.getParallelism(), factory);
+  }
+}
@@ -1,5 +1,9 @@
 package de.tum.in.probmodels.generator;
 
+import de.tum.in.probmodels.model.DefaultStateToIndex;
+import de.tum.in.probmodels.model.PackedStateToIndex;
+import de.tum.in.probmodels.model.PrismStateCodec;
+import de.tum.in.probmodels.model.StateToIndex;
 import de.tum.in.probmodels.util.PrismWrappedException;
 import it.unimi.dsi.fastutil.objects.AbstractObject2DoubleMap;
 import it.unimi.dsi.fastutil.objects.Object2DoubleMap;
@@ -8,6 +12,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import parser.State;
+import parser.VarList;
 import prism.ModelGenerator;
 import prism.PrismException;
 
@@ -40,6 +45,19 @@ public abstract class PrismGenerator implements Generator<State> {
     }
   }
 
+  @Override
+  public StateToIndex<State> stateIndex() {
+    try {
+      VarList varList = generator.createVarList();
+      // Falls back to retaining the states if some variable cannot be packed
+      return PrismStateCodec.supports(varList)
+          ? new PackedStateToIndex(PrismStateCodec.of(varList))
+          : new DefaultStateToIndex<>();
+    } catch (PrismException e) {
+      throw new PrismWrappedException(e);
+    }
+  }
+
   protected abstract Collection<Choice<State>> getChoices(State state) throws PrismException;
 
   protected Collection<Object2DoubleMap.Entry<State>> transitions(int choiceIndex, int count) {
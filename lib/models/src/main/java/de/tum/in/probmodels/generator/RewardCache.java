@@ -0,0 +1,87 @@
+package de.tum.in.probmodels.generator;
+
+import de.tum.in.probmodels.model.Action;
+import de.tum.in.probmodels.model.Model;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * Stores the rewards of a {@link RewardGenerator} in primitive arrays indexed by the state ids of
+ * a model, so that repeated lookups, e.g. in every sweep of value iteration, do not evaluate the
+ * reward expressions again. The rewards of a state and all of its actions are computed together,
+ * either explicitly by {@link #cache(int)} when the state is explored or on first access.
+ *
+ * <p>Transition rewards only depend on the label of an action. The label of each cached action is
+ * remembered and compared on lookup, so the rewards stay correct if the action list of a state
+ * changes, e.g. when the black box explorers filter actions.</p>
+ *
+ * <p>This class is not thread-safe. Callers accessing it concurrently have to {@link #cache(int)}
+ * all relevant states beforehand; reading cached rewards concurrently is fine.</p>
+ */
+public final class RewardCache<S> {
+  private final Model model;
+  private final IntFunction<S> stateFunction;
+  private final RewardGenerator<S> rewardGenerator;
+
+  private double[] stateRewards = new double[0];
+  // Transition reward of each action of a state, null if the state has not been cached yet
+  private double[][] transitionRewards = new double[0][];
+  // Label of each action of a state at the time its rewards were cached
+  private Object[][] actionLabels = new Object[0][];
+
+  public RewardCache(Model model, IntFunction<S> stateFunction,
+      RewardGenerator<S> rewardGenerator) {
+    this.model = model;
+    this.stateFunction = stateFunction;
+    this.rewardGenerator = rewardGenerator;
+  }
+
+  // Computes the rewards of the state and all its current actions.
+  public void cache(int state) {
+    if (state >= transitionRewards.length) {
+      int size = Math.max(state + 1, transitionRewards.length * 2);
+      stateRewards = Arrays.copyOf(stateRewards, size);
+      transitionRewards = Arrays.copyOf(transitionRewards, size);
+      actionLabels = Arrays.copyOf(actionLabels, size);
+    }
+
+    S stateObject = stateFunction.apply(state);
+    List<Action> actions = model.getActions(state);
+    double[] rewards = new double[actions.size()];
+    Object[] labels = new Object[actions.size()];
+    for (int action = 0; action < rewards.length; action++) {
+      labels[action] = actions.get(action).label();
+      rewards[action] = rewardGenerator.transitionReward(stateObject, labels[action]);
+    }
+    stateRewards[state] = rewardGenerator.stateReward(stateObject);
+    transitionRewards[state] = rewards;
+    actionLabels[state] = labels;
+  }
+
+  public boolean isCached(int state) {
+    return state < transitionRewards.length && transitionRewards[state] != null;
+  }
+
+  public double stateReward(int state) {
+    if (!isCached(state)) {
+      cache(state);
+    }
+    return stateRewards[state];
+  }
+
+  public double transitionReward(int state, int action) {
+    if (!isCached(state) || action >= transitionRewards[state].length
+        || !Objects.equals(actionLabels[state][action], model.getActionLabel(state, action))) {
+      cache(state);
+    }
+    return transitionRewards[state][action];
+  }
+
+  // The reward collected when choosing the given action in the state, i.e. state plus transition
+  // reward.
+  public double reward(int state, int action) {
+    return transitionReward(state, action) + stateRewards[state];
+  }
+}
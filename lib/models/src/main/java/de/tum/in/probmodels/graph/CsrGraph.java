@@ -0,0 +1,136 @@
+package de.tum.in.probmodels.graph;
+
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntCollection;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable successor relation over a fixed set of states in compressed sparse row form. The
+ * states are numbered densely by their iteration order when building the graph ("nodes"), the
+ * successors of node {@code i} are stored in {@code targets[offsets[i]]} up to (excluding)
+ * {@code targets[offsets[i + 1]]}. Successors outside the set of states are dropped.
+ */
+public final class CsrGraph {
+  // Use a plain array to translate state ids as long as it is not much larger than the state set
+  private static final int DENSE_FACTOR = 4;
+
+  final int[] states;
+  final int[] offsets;
+  final int[] targets;
+  private final int[] denseNodes;
+  private final Int2IntMap sparseNodes;
+
+  private CsrGraph(int[] states, int[] offsets, int[] targets, int[] denseNodes,
+      Int2IntMap sparseNodes) {
+    this.states = states;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.denseNodes = denseNodes;
+    this.sparseNodes = sparseNodes;
+  }
+
+  @FunctionalInterface
+  public interface Successors {
+    // Passes all successors of the state to the consumer, duplicates are allowed.
+    void forEach(int state, IntConsumer consumer);
+  }
+
+  public static CsrGraph of(IntCollection stateCollection, Successors successors) {
+    int size = stateCollection.size();
+    int[] states = new int[size];
+    int minimum = 0;
+    int maximum = -1;
+    IntIterator iterator = stateCollection.iterator();
+    for (int node = 0; node < size; node++) {
+      int state = iterator.nextInt();
+      states[node] = state;
+      minimum = Math.min(minimum, state);
+      maximum = Math.max(maximum, state);
+    }
+
+    int[] denseNodes;
+    Int2IntMap sparseNodes;
+    if (minimum >= 0 && maximum < DENSE_FACTOR * size + 64) {
+      denseNodes = new int[maximum + 1];
+      Arrays.fill(denseNodes, -1);
+      for (int node = 0; node < size; node++) {
+        denseNodes[states[node]] = node;
+      }
+      sparseNodes = null;
+    } else {
+      denseNodes = null;
+      sparseNodes = new Int2IntOpenHashMap(size);
+      sparseNodes.defaultReturnValue(-1);
+      for (int node = 0; node < size; node++) {
+        sparseNodes.put(states[node], node);
+      }
+    }
+
+    int[] offsets = new int[size + 1];
+    IntArrayList targets = new IntArrayList(size);
+    CsrGraph partial = new CsrGraph(states, offsets, null, denseNodes, sparseNodes);
+    IntConsumer addTarget = successor -> {
+      int target = partial.node(successor);
+      if (target != -1) {
+        targets.add(target);
+      }
+    };
+    for (int node = 0; node < size; node++) {
+      offsets[node] = targets.size();
+      successors.forEach(states[node], addTarget);
+    }
+    offsets[size] = targets.size();
+
+    return new CsrGraph(states, offsets, targets.toIntArray(), denseNodes, sparseNodes);
+  }
+
+  // Returns the graph with all edges reversed, sharing the node numbering of this graph.
+  public CsrGraph transpose() {
+    int size = size();
+    int[] reverseOffsets = new int[size + 1];
+    for (int target : targets) {
+      reverseOffsets[target + 1] += 1;
+    }
+    for (int node = 0; node < size; node++) {
+      reverseOffsets[node + 1] += reverseOffsets[node];
+    }
+    int[] position = Arrays.copyOf(reverseOffsets, size);
+    int[] reverseTargets = new int[targets.length];
+    for (int node = 0; node < size; node++) {
+      for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+        reverseTargets[position[targets[i]]++] = node;
+      }
+    }
+    return new CsrGraph(states, reverseOffsets, reverseTargets, denseNodes, sparseNodes);
+  }
+
+  public int size() {
+    return states.length;
+  }
+
+  public int state(int node) {
+    return states[node];
+  }
+
+  // Returns the node of the given state or -1 if the state is not part of this graph.
+  public int node(int state) {
+    if (denseNodes != null) {
+      return 0 <= state && state < denseNodes.length ? denseNodes[state] : -1;
+    }
+    return sparseNodes.get(state);
+  }
+
+  public int successorCount(int node) {
+    return offsets[node + 1] - offsets[node];
+  }
+
+  public void forEachSuccessor(int node, IntConsumer consumer) {
+    for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+      consumer.accept(targets[i]);
+    }
+  }
+}
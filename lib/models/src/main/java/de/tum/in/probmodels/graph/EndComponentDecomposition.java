@@ -1,17 +1,18 @@
 package de.tum.in.probmodels.graph;
 
 import de.tum.in.naturals.set.NatBitSet;
-import de.tum.in.naturals.set.NatBitSets;
 import de.tum.in.probmodels.model.Distribution;
 import de.tum.in.probmodels.model.Model;
-import it.unimi.dsi.fastutil.ints.Int2ObjectFunction;
-import it.unimi.dsi.fastutil.ints.IntIterator;
-import it.unimi.dsi.fastutil.ints.IntIterators;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.stream.Collectors;
 
 public final class EndComponentDecomposition {
@@ -28,28 +29,8 @@ public final class EndComponentDecomposition {
       Mec mec = workList.remove();
       assert restriction.containsAll(mec.states);
 
-      Int2ObjectFunction<IntIterator> successorFunction = state -> {
-        assert mec.states.contains(state) && restriction.contains(state);
-
-        List<Distribution> choices = model.getChoices(state);
-        if (choices == null) {
-          return IntIterators.EMPTY_ITERATOR;
-        }
-        IntSet allowedActions = mec.actions.get(state);
-        if (allowedActions == null || allowedActions.isEmpty()) {
-          return IntIterators.EMPTY_ITERATOR;
-        }
-        if (allowedActions.size() == 1) {
-          return choices.get(allowedActions.iterator().nextInt()).support().iterator();
-        }
-        // Make successors unique - cheap due to bulk OR
-        NatBitSet union = NatBitSets.set();
-        allowedActions.forEach((int index) -> union.or(choices.get(index).support()));
-        return union.iterator();
-      };
-
       List<Mec> preMecs =
-          SccDecomposition.computeSccs(successorFunction, mec.states, s -> true, true)
+          SccDecomposition.computeSccs(CsrGraph.of(mec.states, successors(model, mec)), true)
               .stream()
               .map(scc -> Mec.create(model, scc))
               .filter(m -> !m.states.isEmpty())
@@ -69,4 +50,73 @@ public final class EndComponentDecomposition {
 
     return mecs;
   }
+
+  /**
+   * Computes the MECs like {@link #computeComponents(Model, NatBitSet)}, but refines independent
+   * candidates concurrently on the given pool, and searches the SCCs of large candidates with
+   * {@link ParallelSccDecomposition}. The MECs are returned ordered by their smallest state.
+   */
+  public static List<Mec> computeComponents(Model model, NatBitSet restriction, ForkJoinPool pool) {
+    Queue<Mec> mecs = new ConcurrentLinkedQueue<>();
+    pool.invoke(new Refinement(model, Mec.create(model, restriction), pool, mecs));
+
+    List<Mec> result = new ArrayList<>(mecs);
+    result.sort(Comparator.comparingInt(mec -> mec.states.firstInt()));
+    return result;
+  }
+
+  private static CsrGraph.Successors successors(Model model, Mec mec) {
+    return (state, consumer) -> {
+      assert mec.states.contains(state);
+
+      List<Distribution> choices = model.getChoices(state);
+      if (choices == null) {
+        return;
+      }
+      IntSet allowedActions = mec.actions.get(state);
+      if (allowedActions == null) {
+        return;
+      }
+      // Duplicate successors are fine for the SCC search, no need to make them unique
+      allowedActions.forEach((int index) -> choices.get(index).support().forEach(consumer));
+    };
+  }
+
+  private static final class Refinement extends RecursiveAction {
+    // Candidates with more states than this are split by the parallel SCC search
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private final Model model;
+    private final Mec mec;
+    private final ForkJoinPool pool;
+    private final Queue<Mec> mecs;
+
+    Refinement(Model model, Mec mec, ForkJoinPool pool, Queue<Mec> mecs) {
+      this.model = model;
+      this.mec = mec;
+      this.pool = pool;
+      this.mecs = mecs;
+    }
+
+    @Override
+    protected void compute() {
+      CsrGraph graph = CsrGraph.of(mec.states, successors(model, mec));
+      List<NatBitSet> sccs = graph.size() > PARALLEL_THRESHOLD
+          ? ParallelSccDecomposition.computeSccs(graph, true, pool)
+          : SccDecomposition.computeSccs(graph, true);
+
+      List<Mec> preMecs = sccs.stream()
+          .map(scc -> Mec.create(model, scc))
+          .filter(m -> !m.states.isEmpty())
+          .collect(Collectors.toList());
+
+      if (preMecs.size() == 1 && mec.equals(preMecs.get(0))) {
+        mecs.add(preMecs.get(0));
+        return;
+      }
+      invokeAll(preMecs.stream()
+          .map(preMec -> new Refinement(model, preMec, pool, mecs))
+          .collect(Collectors.toList()));
+    }
+  }
 }
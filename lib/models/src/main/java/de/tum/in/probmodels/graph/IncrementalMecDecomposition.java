@@ -0,0 +1,155 @@
+package de.tum.in.probmodels.graph;
+
+import de.tum.in.naturals.set.NatBitSet;
+import de.tum.in.naturals.set.NatBitSets;
+import de.tum.in.probmodels.model.Distribution;
+import de.tum.in.probmodels.model.Model;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntCollection;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maintains the maximal end components of a model which changes over time, e.g. a partial model
+ * during exploration. Instead of decomposing all states after each change, only the region which
+ * may be affected by the changed states is decomposed again.
+ *
+ * <p>A new MEC either contains a changed state, and then lies on a cycle through a changed state,
+ * or it was an end component before and thus is contained in a previous MEC. Hence it suffices to
+ * decompose the states which are reachable from and can reach a changed state, together with all
+ * previous MECs which intersect these states or contain a changed state. All other MECs are kept
+ * as they are.</p>
+ */
+public final class IncrementalMecDecomposition {
+  private final List<NatBitSet> components = new ArrayList<>();
+  private final Int2IntMap stateToComponent = new Int2IntOpenHashMap();
+
+  public IncrementalMecDecomposition() {
+    stateToComponent.defaultReturnValue(-1);
+  }
+
+  // The MECs of the model as of the last update.
+  public List<NatBitSet> components() {
+    return Collections.unmodifiableList(components);
+  }
+
+  /**
+   * Repairs the decomposition of the model restricted to the given states. The changed states have
+   * to include all states which were added to the restriction, removed from it or whose choices
+   * changed since the previous update.
+   *
+   * @return the components which are new or changed, i.e. not equal to any previous component.
+   */
+  public List<NatBitSet> update(Model model, IntSet states, IntCollection changedStates) {
+    NatBitSet seeds = NatBitSets.set();
+    NatBitSet affectedComponents = NatBitSets.set();
+    changedStates.forEach((int state) -> {
+      int component = stateToComponent.get(state);
+      if (component != -1) {
+        affectedComponents.set(component);
+      }
+      if (states.contains(state)) {
+        seeds.set(state);
+      }
+    });
+    if (seeds.isEmpty() && affectedComponents.isEmpty()) {
+      return List.of();
+    }
+
+    NatBitSet region = cycleClosure(model, states, seeds);
+    region.forEach((int state) -> {
+      int component = stateToComponent.get(state);
+      if (component != -1) {
+        affectedComponents.set(component);
+      }
+    });
+    affectedComponents.forEach((int component) -> region.or(components.get(component)));
+    region.retainAll(states);
+
+    Set<NatBitSet> previousComponents = new HashSet<>(affectedComponents.size());
+    List<NatBitSet> newComponents = new ArrayList<>(components.size());
+    for (int i = 0; i < components.size(); i++) {
+      if (affectedComponents.contains(i)) {
+        previousComponents.add(components.get(i));
+      } else {
+        newComponents.add(components.get(i));
+      }
+    }
+
+    List<NatBitSet> changedComponents = new ArrayList<>();
+    if (!region.isEmpty()) {
+      for (Mec mec : EndComponentDecomposition.computeComponents(model, region)) {
+        newComponents.add(mec.states);
+        if (!previousComponents.contains(mec.states)) {
+          changedComponents.add(mec.states);
+        }
+      }
+    }
+
+    components.clear();
+    components.addAll(newComponents);
+    stateToComponent.clear();
+    for (int i = 0; i < components.size(); i++) {
+      int component = i;
+      components.get(i).forEach((int state) -> stateToComponent.put(state, component));
+    }
+    return changedComponents;
+  }
+
+  // Forgets all components, e.g. after they have been collapsed.
+  public void clear() {
+    components.clear();
+    stateToComponent.clear();
+  }
+
+  // Computes the states which are reachable from and can reach one of the seeds.
+  private static NatBitSet cycleClosure(Model model, IntSet states, NatBitSet seeds) {
+    NatBitSet forward = NatBitSets.copyOf(seeds);
+    Int2ObjectMap<IntList> predecessors = new Int2ObjectOpenHashMap<>();
+    IntArrayList stack = new IntArrayList(seeds);
+    while (!stack.isEmpty()) {
+      int state = stack.popInt();
+      List<Distribution> choices = model.getChoices(state);
+      if (choices == null) {
+        continue;
+      }
+      for (Distribution choice : choices) {
+        choice.support().forEach((int successor) -> {
+          if (!states.contains(successor)) {
+            return;
+          }
+          predecessors.computeIfAbsent(successor, k -> new IntArrayList()).add(state);
+          if (!forward.contains(successor)) {
+            forward.set(successor);
+            stack.push(successor);
+          }
+        });
+      }
+    }
+
+    NatBitSet backward = NatBitSets.copyOf(seeds);
+    stack.addAll(seeds);
+    while (!stack.isEmpty()) {
+      IntList statePredecessors = predecessors.get(stack.popInt());
+      if (statePredecessors == null) {
+        continue;
+      }
+      statePredecessors.forEach((int predecessor) -> {
+        if (!backward.contains(predecessor)) {
+          backward.set(predecessor);
+          stack.push(predecessor);
+        }
+      });
+    }
+    return backward;
+  }
+}
@@ -7,17 +7,36 @@ import it.unimi.dsi.fastutil.ints.IntSet;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 
 public class MecComponentAnalyser implements ComponentAnalyser {
   private static final Logger logger = Logger.getLogger(MecComponentAnalyser.class.getName());
 
+  @Nullable
+  private final ForkJoinPool pool;
+
+  public MecComponentAnalyser() {
+    this(null);
+  }
+
+  // Decomposes on the given pool if present, worthwhile for large, completely built models. Callers
+  // should only pass a pool if the user asked for threads, e.g. CoreChecker with --threads. The
+  // components then are ordered by their smallest state instead of the sequential search order.
+  public MecComponentAnalyser(@Nullable ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
   @Override
   public List<NatBitSet> findComponents(Model model, IntSet states) {
     logger.log(Level.FINE, "\nStarting MECs search");
 
-    List<Mec> mecs = EndComponentDecomposition.computeComponents(model, NatBitSets.copyOf(states));
+    NatBitSet restriction = NatBitSets.copyOf(states);
+    List<Mec> mecs = pool == null
+        ? EndComponentDecomposition.computeComponents(model, restriction)
+        : EndComponentDecomposition.computeComponents(model, restriction, pool);
     if (mecs.isEmpty()) {
       logger.log(Level.FINE, "Found no MECs");
       return Collections.emptyList();
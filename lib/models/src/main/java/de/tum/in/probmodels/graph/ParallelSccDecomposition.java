@@ -0,0 +1,370 @@
+package de.tum.in.probmodels.graph;
+
+import de.tum.in.naturals.set.NatBitSet;
+import de.tum.in.naturals.set.NatBitSets;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds the SCCs of a {@link CsrGraph} in parallel, meant for large, completely built models.
+ *
+ * <p>Uses the forward-backward scheme: the SCC of a pivot node is the intersection of its forward
+ * and backward reachable sets, and every other SCC lies entirely in the forward-only, the
+ * backward-only or the remaining nodes, which are then decomposed independently on the fork-join
+ * pool. Each sub-problem is first trimmed, i.e. nodes without incoming or outgoing edges inside it
+ * are removed as singleton SCCs, which keeps chain-like parts from degenerating. Small
+ * sub-problems and sub-problems where splitting makes little progress are handed to Tarjan's
+ * algorithm.</p>
+ *
+ * <p>The nodes of each sub-problem are identified by a common color, so concurrent sub-problems
+ * work on disjoint entries of the shared arrays. Contrary to {@link SccDecomposition}, the SCCs
+ * are returned ordered by their smallest state.</p>
+ */
+public final class ParallelSccDecomposition {
+  // Sub-problems with at most this many nodes are decomposed sequentially
+  private static final int SEQUENTIAL_THRESHOLD = 1 << 12;
+  // Number of consecutive splits which each remove at most a sixteenth of the nodes of a
+  // sub-problem, after which it is handed to Tarjan's algorithm
+  private static final int MAX_UNPRODUCTIVE_SPLITS = 8;
+  private static final int DONE = -1;
+  private static final int NO_LINK = SccDecomposition.NO_LINK;
+
+  private final CsrGraph graph;
+  private final CsrGraph reverse;
+  private final boolean includeTransient;
+  private final AtomicInteger colorCount = new AtomicInteger();
+  private final Queue<NatBitSet> sccs = new ConcurrentLinkedQueue<>();
+
+  private final int[] color;
+  // Scratch space of the trimming and the sequential decomposition, indexed by node
+  private final int[] inDegree;
+  private final int[] outDegree;
+  private final int[] nodeIndex;
+  private final int[] lowLink;
+  private final int[] nextEdge;
+
+  private ParallelSccDecomposition(CsrGraph graph, boolean includeTransient) {
+    this.graph = graph;
+    this.reverse = graph.transpose();
+    this.includeTransient = includeTransient;
+
+    int size = graph.size();
+    this.color = new int[size];
+    this.inDegree = new int[size];
+    this.outDegree = new int[size];
+    this.nodeIndex = new int[size];
+    this.lowLink = new int[size];
+    this.nextEdge = new int[size];
+  }
+
+  public static List<NatBitSet> computeSccs(CsrGraph graph, boolean includeTransient,
+      ForkJoinPool pool) {
+    ParallelSccDecomposition decomposition = new ParallelSccDecomposition(graph, includeTransient);
+    int[] nodes = new int[graph.size()];
+    Arrays.setAll(nodes, node -> node);
+    Decompose task = decomposition.new Decompose(decomposition.colorCount.get(), nodes);
+    if (ForkJoinTask.inForkJoinPool()) {
+      task.invoke();
+    } else {
+      pool.invoke(task);
+    }
+
+    List<NatBitSet> sccs = new ArrayList<>(decomposition.sccs);
+    sccs.sort(Comparator.comparingInt(NatBitSet::firstInt));
+    return sccs;
+  }
+
+  private boolean hasSelfLoop(int node) {
+    for (int i = graph.offsets[node]; i < graph.offsets[node + 1]; i++) {
+      if (graph.targets[i] == node) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void addSingleton(int node) {
+    if (includeTransient || hasSelfLoop(node)) {
+      sccs.add(NatBitSets.singleton(graph.state(node)));
+    }
+  }
+
+  // Removes all nodes which have no predecessor or no successor inside the sub-problem, repeatedly.
+  // Returns the remaining nodes.
+  private int[] trim(int currentColor, int[] nodes) {
+    IntArrayList queue = new IntArrayList();
+    for (int node : nodes) {
+      outDegree[node] = degree(graph, node, currentColor);
+      inDegree[node] = degree(reverse, node, currentColor);
+      if (outDegree[node] == 0 || inDegree[node] == 0) {
+        queue.add(node);
+      }
+    }
+    if (queue.isEmpty()) {
+      return nodes;
+    }
+
+    while (!queue.isEmpty()) {
+      int node = queue.popInt();
+      if (color[node] != currentColor) {
+        continue;
+      }
+      color[node] = DONE;
+      addSingleton(node);
+
+      for (int i = graph.offsets[node]; i < graph.offsets[node + 1]; i++) {
+        int successor = graph.targets[i];
+        if (successor != node && color[successor] == currentColor) {
+          inDegree[successor] -= 1;
+          if (inDegree[successor] == 0) {
+            queue.push(successor);
+          }
+        }
+      }
+      for (int i = reverse.offsets[node]; i < reverse.offsets[node + 1]; i++) {
+        int predecessor = reverse.targets[i];
+        if (predecessor != node && color[predecessor] == currentColor) {
+          outDegree[predecessor] -= 1;
+          if (outDegree[predecessor] == 0) {
+            queue.push(predecessor);
+          }
+        }
+      }
+    }
+    return Arrays.stream(nodes).filter(node -> color[node] == currentColor).toArray();
+  }
+
+  private int degree(CsrGraph edges, int node, int currentColor) {
+    int degree = 0;
+    for (int i = edges.offsets[node]; i < edges.offsets[node + 1]; i++) {
+      int target = edges.targets[i];
+      if (target != node && color[target] == currentColor) {
+        degree += 1;
+      }
+    }
+    return degree;
+  }
+
+  // Tarjan's algorithm restricted to the nodes of the given color, see SccDecomposition
+  private void tarjan(int currentColor, int[] nodes) {
+    for (int node : nodes) {
+      nodeIndex[node] = -1;
+    }
+    int[] path = new int[nodes.length];
+    int[] explorationStack = new int[nodes.length];
+    int pathSize = 0;
+    int stackSize = 0;
+    int index = 0;
+
+    for (int initial : nodes) {
+      if (nodeIndex[initial] != -1) {
+        continue;
+      }
+      nodeIndex[initial] = index++;
+      lowLink[initial] = NO_LINK;
+      nextEdge[initial] = graph.offsets[initial];
+      explorationStack[stackSize++] = initial;
+      path[pathSize++] = initial;
+
+      while (pathSize > 0) {
+        int node = path[pathSize - 1];
+        int end = graph.offsets[node + 1];
+
+        boolean descended = false;
+        while (nextEdge[node] < end) {
+          int successor = graph.targets[nextEdge[node]];
+          nextEdge[node] += 1;
+
+          if (successor == node) {
+            if (lowLink[node] == NO_LINK) {
+              lowLink[node] = nodeIndex[node];
+            }
+            continue;
+          }
+          if (color[successor] != currentColor) {
+            continue;
+          }
+          if (nodeIndex[successor] == -1) {
+            nodeIndex[successor] = index++;
+            lowLink[successor] = NO_LINK;
+            nextEdge[successor] = graph.offsets[successor];
+            explorationStack[stackSize++] = successor;
+            path[pathSize++] = successor;
+            descended = true;
+            break;
+          }
+          int successorLowLink = lowLink[successor] == NO_LINK
+              ? nodeIndex[successor] : lowLink[successor];
+          if (successorLowLink < lowLink[node]) {
+            lowLink[node] = successorLowLink;
+          }
+        }
+        if (descended) {
+          continue;
+        }
+
+        int nodeLowLink = lowLink[node];
+        if (nodeLowLink == NO_LINK) {
+          stackSize -= 1;
+          color[node] = DONE;
+          if (includeTransient) {
+            sccs.add(NatBitSets.singleton(graph.state(node)));
+          }
+        } else if (nodeLowLink == nodeIndex[node]) {
+          NatBitSet scc = NatBitSets.set();
+          int stackNode;
+          do {
+            stackNode = explorationStack[--stackSize];
+            color[stackNode] = DONE;
+            scc.add(graph.state(stackNode));
+          } while (stackNode != node);
+          sccs.add(scc);
+        } else {
+          int predecessor = path[pathSize - 2];
+          if (nodeLowLink < lowLink[predecessor]) {
+            lowLink[predecessor] = nodeLowLink;
+          }
+        }
+        pathSize -= 1;
+      }
+    }
+  }
+
+  private final class Decompose extends RecursiveAction {
+    private final int initialColor;
+    private final int[] initialNodes;
+
+    Decompose(int currentColor, int[] nodes) {
+      this.initialColor = currentColor;
+      this.initialNodes = nodes;
+    }
+
+    @Override
+    protected void compute() {
+      // The largest sub-problem is decomposed by this task in a loop, the others are forked. Each
+      // forked sub-problem has at most half the nodes, which bounds the nesting of tasks.
+      List<Decompose> forked = new ArrayList<>();
+      int currentColor = initialColor;
+      int[] nodes = initialNodes;
+      int unproductiveSplits = 0;
+      while (nodes.length > 0) {
+        int[] remaining = trim(currentColor, nodes);
+        if (remaining.length == 0) {
+          break;
+        }
+        if (remaining.length <= SEQUENTIAL_THRESHOLD
+            || unproductiveSplits >= MAX_UNPRODUCTIVE_SPLITS) {
+          // Many small SCCs, e.g. a chain of cycles, would otherwise need a split per SCC
+          tarjan(currentColor, remaining);
+          break;
+        }
+
+        int[][] subProblems = new int[3][];
+        int[] subProblemColors = new int[3];
+        split(currentColor, remaining, subProblems, subProblemColors);
+
+        int largest = 0;
+        for (int i = 1; i < subProblems.length; i++) {
+          if (subProblems[i].length > subProblems[largest].length) {
+            largest = i;
+          }
+        }
+        for (int i = 0; i < subProblems.length; i++) {
+          if (i != largest && subProblems[i].length > 0) {
+            Decompose task = new Decompose(subProblemColors[i], subProblems[i]);
+            task.fork();
+            forked.add(task);
+          }
+        }
+
+        if (subProblems[largest].length > remaining.length - remaining.length / 16) {
+          unproductiveSplits += 1;
+        } else {
+          unproductiveSplits = 0;
+        }
+        currentColor = subProblemColors[largest];
+        nodes = subProblems[largest];
+      }
+      for (Decompose task : forked) {
+        task.join();
+      }
+    }
+
+    // Removes the SCC of a pivot and stores the forward-only, backward-only and remaining nodes
+    // together with their colors
+    private void split(int currentColor, int[] remaining, int[][] subProblems,
+        int[] subProblemColors) {
+      int pivot = remaining[0];
+      int forwardColor = colorCount.incrementAndGet();
+      int backwardColor = colorCount.incrementAndGet();
+
+      IntArrayList stack = new IntArrayList();
+      color[pivot] = forwardColor;
+      stack.push(pivot);
+      while (!stack.isEmpty()) {
+        int node = stack.popInt();
+        for (int i = graph.offsets[node]; i < graph.offsets[node + 1]; i++) {
+          int successor = graph.targets[i];
+          if (color[successor] == currentColor) {
+            color[successor] = forwardColor;
+            stack.push(successor);
+          }
+        }
+      }
+
+      // Backward search, nodes reached both ways form the SCC of the pivot
+      NatBitSet scc = NatBitSets.set();
+      color[pivot] = DONE;
+      scc.add(graph.state(pivot));
+      stack.push(pivot);
+      while (!stack.isEmpty()) {
+        int node = stack.popInt();
+        for (int i = reverse.offsets[node]; i < reverse.offsets[node + 1]; i++) {
+          int predecessor = reverse.targets[i];
+          if (color[predecessor] == forwardColor) {
+            color[predecessor] = DONE;
+            scc.add(graph.state(predecessor));
+            stack.push(predecessor);
+          } else if (color[predecessor] == currentColor) {
+            color[predecessor] = backwardColor;
+            stack.push(predecessor);
+          }
+        }
+      }
+      if (scc.size() == 1) {
+        addSingleton(pivot);
+      } else {
+        sccs.add(scc);
+      }
+
+      IntArrayList forward = new IntArrayList();
+      IntArrayList backward = new IntArrayList();
+      IntArrayList rest = new IntArrayList();
+      for (int node : remaining) {
+        int nodeColor = color[node];
+        if (nodeColor == forwardColor) {
+          forward.add(node);
+        } else if (nodeColor == backwardColor) {
+          backward.add(node);
+        } else if (nodeColor == currentColor) {
+          rest.add(node);
+        }
+      }
+      subProblems[0] = forward.toIntArray();
+      subProblemColors[0] = forwardColor;
+      subProblems[1] = backward.toIntArray();
+      subProblemColors[1] = backwardColor;
+      subProblems[2] = rest.toIntArray();
+      subProblemColors[2] = currentColor;
+    }
+  }
+}
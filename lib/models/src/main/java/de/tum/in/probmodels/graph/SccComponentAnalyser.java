@@ -15,8 +15,9 @@ public class SccComponentAnalyser implements ComponentAnalyser {
   public List<NatBitSet> findComponents(Model model, IntSet states) {
     logger.log(Level.FINE, "\nStarting BSCC search");
 
-    List<NatBitSet> sccs = SccDecomposition.computeSccs(model::getSuccessors,
-        model.getInitialStates(), states::contains, false);
+    CsrGraph graph = CsrGraph.of(states,
+        (state, consumer) -> model.getSuccessors(state).forEachRemaining(consumer));
+    List<NatBitSet> sccs = SccDecomposition.computeSccs(graph, model.getInitialStates(), false);
     List<NatBitSet> bsccs = new ArrayList<>(sccs);
     bsccs.removeIf(scc -> scc.intStream().anyMatch(state ->
         model.someSuccessorsMatch(state, successor -> !scc.contains(successor))));
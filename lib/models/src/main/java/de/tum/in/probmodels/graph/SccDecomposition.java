@@ -9,11 +9,13 @@ import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntCollection;
+import it.unimi.dsi.fastutil.ints.IntIterator;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.ints.IntStack;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
@@ -69,6 +71,132 @@ public final class SccDecomposition {
   }
 
 
+  /**
+   * Array-based variant of {@link #computeSccs(Int2ObjectFunction, IntCollection, IntPredicate,
+   * boolean)} operating on a {@link CsrGraph}, where the restriction is given by the states of the
+   * graph. Index, low-link and the stacks are dense int arrays indexed by the graph nodes, so no
+   * objects are allocated per state. The search is started from the given initial states in
+   * iteration order and yields the same SCCs in the same order as the general variant.
+   */
+  public static List<NatBitSet> computeSccs(CsrGraph graph, IntCollection initialStates,
+      boolean includeTransient) {
+    int size = graph.size();
+    int[] offsets = graph.offsets;
+    int[] targets = graph.targets;
+
+    // Index of each node in visiting order, -1 if not visited yet
+    int[] nodeIndex = new int[size];
+    Arrays.fill(nodeIndex, -1);
+    int[] lowLink = new int[size];
+    // Position of the next successor to be processed of each node on the path
+    int[] nextEdge = new int[size];
+    boolean[] processed = new boolean[size];
+    int[] path = new int[size];
+    int[] explorationStack = new int[size];
+    int pathSize = 0;
+    int stackSize = 0;
+    int index = 0;
+
+    List<NatBitSet> sccs = new ArrayList<>();
+    IntIterator initialIterator = initialStates.iterator();
+    while (initialIterator.hasNext()) {
+      int initial = graph.node(initialIterator.nextInt());
+      if (initial == -1 || nodeIndex[initial] != -1) {
+        continue;
+      }
+
+      nodeIndex[initial] = index;
+      lowLink[initial] = NO_LINK;
+      nextEdge[initial] = offsets[initial];
+      index += 1;
+      explorationStack[stackSize++] = initial;
+      path[pathSize++] = initial;
+
+      while (pathSize > 0) {
+        int node = path[pathSize - 1];
+        int end = offsets[node + 1];
+
+        boolean descended = false;
+        while (nextEdge[node] < end) {
+          int successor = targets[nextEdge[node]];
+          nextEdge[node] += 1;
+
+          if (successor == node) {
+            if (lowLink[node] == NO_LINK) {
+              lowLink[node] = nodeIndex[node];
+            }
+            continue;
+          }
+          if (processed[successor]) {
+            continue;
+          }
+          if (nodeIndex[successor] == -1) {
+            // Successor was not processed, do that now
+            nodeIndex[successor] = index;
+            lowLink[successor] = NO_LINK;
+            nextEdge[successor] = offsets[successor];
+            index += 1;
+            explorationStack[stackSize++] = successor;
+            path[pathSize++] = successor;
+            descended = true;
+            break;
+          }
+
+          int successorLowLink = lowLink[successor] == NO_LINK
+              ? nodeIndex[successor] : lowLink[successor];
+          if (successorLowLink < lowLink[node]) {
+            lowLink[node] = successorLowLink;
+          }
+        }
+        if (descended) {
+          continue;
+        }
+
+        // Same three cases as in the general variant
+        int nodeLowLink = lowLink[node];
+        if (nodeLowLink == NO_LINK) {
+          assert explorationStack[stackSize - 1] == node;
+          stackSize -= 1;
+          processed[node] = true;
+          if (includeTransient) {
+            sccs.add(NatBitSets.singleton(graph.state(node)));
+          }
+        } else if (nodeLowLink == nodeIndex[node]) {
+          NatBitSet scc;
+          int stackNode = explorationStack[--stackSize];
+          processed[stackNode] = true;
+          if (stackNode == node) {
+            scc = NatBitSets.singleton(graph.state(node));
+          } else {
+            scc = NatBitSets.set();
+            scc.add(graph.state(stackNode));
+            do {
+              stackNode = explorationStack[--stackSize];
+              processed[stackNode] = true;
+              scc.add(graph.state(stackNode));
+            } while (stackNode != node);
+          }
+          sccs.add(scc);
+        } else {
+          assert pathSize > 1 && nodeLowLink < nodeIndex[node];
+          int predecessor = path[pathSize - 2];
+          if (nodeLowLink < lowLink[predecessor]) {
+            lowLink[predecessor] = nodeLowLink;
+          }
+        }
+        pathSize -= 1;
+      }
+    }
+
+    return Collections.unmodifiableList(sccs);
+  }
+
+  // Computes the SCCs of the whole graph, starting the search from the nodes in order.
+  public static List<NatBitSet> computeSccs(CsrGraph graph, boolean includeTransient) {
+    return computeSccs(graph, IntArrayList.wrap(graph.states), includeTransient);
+  }
+
+
   public static boolean isTransient(Int2ObjectFunction<? extends PrimitiveIterator.OfInt> function,
       NatBitSet scc) {
     if (scc.size() > 1) {
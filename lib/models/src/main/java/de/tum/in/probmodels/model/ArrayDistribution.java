@@ -2,6 +2,7 @@ package de.tum.in.probmodels.model;
 
 import de.tum.in.naturals.set.NatBitSet;
 import de.tum.in.naturals.set.NatBitSets;
+import de.tum.in.probmodels.util.AliasTable;
 import de.tum.in.probmodels.util.Sample;
 import de.tum.in.probmodels.util.Util;
 import it.unimi.dsi.fastutil.ints.AbstractInt2DoubleMap;
@@ -20,6 +21,8 @@ public class ArrayDistribution implements Distribution {
   private final double[] probabilities;
   private final NatBitSet support;
   private int lazyHash = 0;
+  // Built on the first sample, distributions which are sampled at all are usually sampled often
+  private AliasTable lazyAliasTable = null;
 
   ArrayDistribution(int key, double probability) {
     successors = new int[] {key};
@@ -107,10 +110,43 @@ public class ArrayDistribution implements Distribution {
     return weight == 0.0d ? 0.0d : sum / weight;
   }
 
+  @Override
+  public boolean sumWeightedExceptJacobi(IntToDoubleFunction lower, IntToDoubleFunction upper,
+      int state, double[] result) {
+    return Distributions.sumWeightedExceptJacobi(successors, probabilities, 0, successors.length,
+        lower, upper, state, result);
+  }
+
 
   @Override
   public int sample() {
-    return successors[Sample.sample(probabilities)];
+    AliasTable aliasTable = aliasTable();
+    return aliasTable == null
+        ? successors[Sample.sample(probabilities)]
+        : successors[aliasTable.sample()];
+  }
+
+  @Override
+  public void sample(int count, int[] out) {
+    AliasTable aliasTable = aliasTable();
+    if (aliasTable == null) {
+      Distribution.super.sample(count, out);
+      return;
+    }
+    aliasTable.sample(count, out);
+    for (int i = 0; i < count; i++) {
+      out[i] = successors[out[i]];
+    }
+  }
+
+  private AliasTable aliasTable() {
+    // Racy initialisation is fine, the table is immutable and at worst built twice
+    AliasTable aliasTable = lazyAliasTable;
+    if (aliasTable == null && successors.length > 1) {
+      aliasTable = AliasTable.of(probabilities, 0, probabilities.length);
+      lazyAliasTable = aliasTable;
+    }
+    return aliasTable;
   }
 
   @Override
@@ -136,6 +172,68 @@ public class ArrayDistribution implements Distribution {
     return builder;
   }
 
+  @Override
+  public Distribution mapScaled(IntUnaryOperator map) {
+    int[] keys = new int[successors.length];
+    double[] values = new double[successors.length];
+    int size = 0;
+    boolean identity = true;
+    boolean sorted = true;
+    for (int i = 0; i < successors.length; i++) {
+      int key = map.applyAsInt(successors[i]);
+      identity = identity && key == successors[i];
+      if (key >= 0) {
+        sorted = sorted && (size == 0 || keys[size - 1] <= key);
+        keys[size] = key;
+        values[size] = probabilities[i];
+        size += 1;
+      }
+    }
+    if (identity) {
+      return this;
+    }
+    if (size == 0) {
+      return EmptyDistribution.INSTANCE;
+    }
+
+    if (!sorted) {
+      it.unimi.dsi.fastutil.Arrays.quickSort(0, size,
+          (a, b) -> Integer.compare(keys[a], keys[b]),
+          (a, b) -> {
+            int key = keys[a];
+            keys[a] = keys[b];
+            keys[b] = key;
+            double value = values[a];
+            values[a] = values[b];
+            values[b] = value;
+          });
+    }
+    // Merge successors mapped to the same state, in place
+    int length = 0;
+    double sum = 0.0d;
+    for (int i = 0; i < size; i++) {
+      if (length > 0 && keys[length - 1] == keys[i]) {
+        values[length - 1] += values[i];
+      } else {
+        keys[length] = keys[i];
+        values[length] = values[i];
+        length += 1;
+      }
+      sum += values[i];
+    }
+    if (length == 1) {
+      return new ArrayDistribution(keys[0], 1.0d);
+    }
+
+    NatBitSet support = NatBitSets.set();
+    for (int i = 0; i < length; i++) {
+      support.set(keys[i]);
+      values[i] /= sum;
+    }
+    return new ArrayDistribution(Arrays.copyOf(keys, length), Arrays.copyOf(values, length),
+        support);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -172,7 +270,12 @@ public class ArrayDistribution implements Distribution {
   @Override
   public int hashCode() {
     if (lazyHash == 0) {
-      lazyHash = support.hashCode();
+      // Same as support.hashCode() by the Set contract, consistent with CompactDistribution
+      int hash = 0;
+      for (int successor : successors) {
+        hash += successor;
+      }
+      lazyHash = hash;
     }
     return lazyHash;
   }
@@ -15,6 +15,9 @@ public interface CollapseModel<M extends Model> extends Model {
 
   NatBitSet removedStates();
 
+  // Has to be called after the choices of the state changed in the underlying model
+  void invalidate(int state);
+
 
   M getModel();
 
@@ -31,6 +31,9 @@ import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import prism.ModelType;
 
+// The choices of a state are read from the underlying model once and then cached until a successor is collapsed. Hence,
+// the choices of a state in the underlying model must not change after they have been read through the view, unless
+// invalidate is called for the state afterwards.
 public class CollapseView<M extends Model> extends AbstractModel implements CollapseModel<M> {
   private static final Logger logger = Logger.getLogger(CollapseView.class.getName());
   private final IntUnionFind collapseUF = new IntArrayUnionFind(0); // Maintains a union-find structure to store representatives of collapsed states.
@@ -39,6 +42,11 @@ public class CollapseView<M extends Model> extends AbstractModel implements Coll
   private final M model;
   private final Int2ObjectMap<List<Distribution>> overwrite = new Int2ObjectOpenHashMap<>(); // Implements a cache to avoid repeated computation of successors
   private final IntSet overwriteCacheValid = new IntOpenHashSet(); // Membership in this indicates if the overwrite cache holds a valid distribution value (It could have been changed recently)
+  // Reverse edges of the validated choices, i.e. for each state the states whose cached choices may lead to it. Entries
+  // are not removed when choices are remapped, so this may contain more predecessors than there actually are.
+  private final Int2ObjectMap<IntSet> predecessors = new Int2ObjectOpenHashMap<>();
+  // For each representative of a collapsed set, all states of the set including the representative itself
+  private final Int2ObjectMap<IntList> collapsedStates = new Int2ObjectOpenHashMap<>();
 
   // Returns underlying model
   public CollapseView(M model) {
@@ -100,14 +108,12 @@ public class CollapseView<M extends Model> extends AbstractModel implements Coll
       }
       // The support of the distribution must have changed, and it must be rebuilt
       else {
-        // Returns a new distribution builder object according to the given map and the distribution
-        DistributionBuilder builder = distribution.map(map);
-        if (builder.isEmpty()) {
+        // A remapped, scaled distribution is built, i.e., if the sum of the probabilities is less than 1, the distribution is scaled
+        Distribution scaled = distribution.mapScaled(map);
+        if (scaled.isEmpty()) {
           anyDifferent = true;
           iterator.remove();
         } else {
-          // A scaled distribution is built, i.e., if the sum of the probabilities is less than 1, the distribution is scaled
-          Distribution scaled = builder.scaled();
           anyDifferent = anyDifferent || !scaled.equals(distribution);
           // Replaces "distribution" with "scaled"
           iterator.set(scaled);
@@ -133,7 +139,8 @@ public class CollapseView<M extends Model> extends AbstractModel implements Coll
     List<Distribution> distributions = null;
     // This is true only when state is not already in overwriteCacheValid. It means that the overwrite map contains the latest distributions and recomputation is not required.
     // Further, it now marks that the state's entry in overwrite is now valid. (overwrite is updated in the block)
-    if (overwriteCacheValid.add(state)) {
+    boolean validated = overwriteCacheValid.add(state);
+    if (validated) {
       // Creates a map from a state to it's representative. Avoids self loops
       IntUnaryOperator map = successor -> {
         int representative = representative(successor);
@@ -148,10 +155,12 @@ public class CollapseView<M extends Model> extends AbstractModel implements Coll
       // Calculates the distributions
       distributions = computeSuccessors(state, map, unchanged);
       if (distributions != null) {
-        // The below 3 lines remove any duplicate distributions
-        Set<Distribution> uniqueDistributions = new HashSet<>(distributions.size());
-        Predicate<Distribution> filter = uniqueDistributions::add;
-        distributions.removeIf(filter.negate());
+        // The below lines remove any duplicate distributions
+        if (distributions.size() > 1) {
+          Set<Distribution> uniqueDistributions = new HashSet<>(distributions.size());
+          Predicate<Distribution> filter = uniqueDistributions::add;
+          distributions.removeIf(filter.negate());
+        }
         // The overwrite cache of state is now updated
         overwrite.put(state, distributions);
       }
@@ -164,6 +173,9 @@ public class CollapseView<M extends Model> extends AbstractModel implements Coll
         distributions = model.getChoices(state);
       }
     }
+    if (validated) {
+      addPredecessor(state, distributions);
+    }
 
     assert distributions != null;
     // Ensures that no distribution is empty
@@ -179,6 +191,39 @@ public class CollapseView<M extends Model> extends AbstractModel implements Coll
     return Collections.unmodifiableList(distributions);
   }
 
+  @Override
+  // Returns the predecessors in this view, i.e. the representatives of the predecessors of all states merged into the
+  // given one, except the state itself. Requires predecessor support of the underlying model. The result is a copy.
+  public IntSet getPredecessors(int state) {
+    assert !isRemoved(state);
+    IntSet result = new IntOpenHashSet();
+    IntList members = collapsedStates.get(state);
+    if (members == null) {
+      model.getPredecessors(state).forEach((int predecessor) -> result.add(representative(predecessor)));
+    } else {
+      members.forEach((int member) -> model.getPredecessors(member)
+          .forEach((int predecessor) -> result.add(representative(predecessor))));
+    }
+    result.remove(state);
+    return result;
+  }
+
+  @Override
+  // Has to be called after the choices of the state in the underlying model changed, the choices are then read again
+  // from the model on the next access
+  public void invalidate(int state) {
+    overwriteCacheValid.remove(state);
+    overwrite.remove(state);
+  }
+
+  // Registers state as predecessor of all successors of the given distributions
+  private void addPredecessor(int state, List<Distribution> distributions) {
+    for (Distribution distribution : distributions) {
+      distribution.forEach((successor, probability) ->
+          predecessors.computeIfAbsent(successor, k -> new IntOpenHashSet()).add(state));
+    }
+  }
+
   @Override
   public Distribution getChoice(int state, int action) {
     return getChoices(state).get(action);
@@ -246,6 +291,17 @@ public class CollapseView<M extends Model> extends AbstractModel implements Coll
     assert stateList.stream().flatMap(Collection::stream).mapToInt(this::representative)
         .distinct().count() == stateList.size();
 
+    // Remap transitions. Other states might be pointing to some now merged state - we have to
+    // update them too. Only the predecessors of merged states are affected. This has to happen
+    // before the representatives register their new successors below.
+    newCollapsed.forEach((int state) -> {
+      IntSet statePredecessors = predecessors.remove(state);
+      if (statePredecessors != null) {
+        overwriteCacheValid.removeAll(statePredecessors);
+      }
+    });
+    overwriteCacheValid.removeAll(newCollapsed);
+
     // Process the distributions for each partition
     for (int i = 0; i < stateList.size(); i++) {
       IntSet states = stateList.get(i);
@@ -292,15 +348,14 @@ public class CollapseView<M extends Model> extends AbstractModel implements Coll
           .mapToObj(overwrite::get).allMatch(Objects::isNull);
 
       // updating overwrite cache
-      overwrite.put(representative, new ArrayList<>(collapsedDistributions));
+      List<Distribution> representativeDistributions = new ArrayList<>(collapsedDistributions);
+      overwrite.put(representative, representativeDistributions);
+      addPredecessor(representative, representativeDistributions);
     }
 
     // overwrite doesn't contain a removed state
     assert overwrite.keySet().stream().noneMatch(this::isRemoved);
 
-    // Remap all transitions. Other states might be pointing to some now merged state - we have
-    // to update them too.
-    overwriteCacheValid.clear();
     overwriteCacheValid.addAll(representatives);
 
     if (logger.isLoggable(Level.INFO)) {
@@ -349,6 +404,18 @@ public class CollapseView<M extends Model> extends AbstractModel implements Coll
     // Gets a random state as a representative
     int representative = representative(anyState);
 
+    // The states might be representatives of earlier collapses themselves
+    IntList members = new IntArrayList();
+    states.forEach((int state) -> {
+      IntList previousMembers = collapsedStates.remove(state);
+      if (previousMembers == null) {
+        members.add(state);
+      } else {
+        members.addAll(previousMembers);
+      }
+    });
+    collapsedStates.put(representative, members);
+
     // Remove all input states
     removedStates.or(states);
     // Mark representative state as not removed
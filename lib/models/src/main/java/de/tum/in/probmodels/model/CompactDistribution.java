@@ -0,0 +1,243 @@
+package de.tum.in.probmodels.model;
+
+import de.tum.in.naturals.set.NatBitSet;
+import de.tum.in.naturals.set.NatBitSets;
+import de.tum.in.probmodels.util.Sample;
+import de.tum.in.probmodels.util.Util;
+import it.unimi.dsi.fastutil.ints.AbstractInt2DoubleMap;
+import it.unimi.dsi.fastutil.ints.Int2DoubleMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Read-only view of a single choice stored in the transition arrays of a
+ * {@link CompactMarkovDecisionProcess}. The model never overwrites a stored slice, so a view is a
+ * stable snapshot even if the model later replaces or compacts the choice.
+ */
+final class CompactDistribution implements Distribution {
+  private final int[] successors;
+  private final double[] probabilities;
+  private final int from;
+  private final int to;
+  private NatBitSet support = null;
+
+  @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+  CompactDistribution(int[] successors, double[] probabilities, int from, int to) {
+    assert from < to;
+    this.successors = successors;
+    this.probabilities = probabilities;
+    this.from = from;
+    this.to = to;
+  }
+
+  boolean isSliceOf(int[] successors) {
+    return this.successors == successors; // NOPMD
+  }
+
+  int offset() {
+    return from;
+  }
+
+  @Override
+  public double get(int key) {
+    int index = Arrays.binarySearch(successors, from, to, key);
+    return index >= 0 ? probabilities[index] : 0.0d;
+  }
+
+  @Override
+  public boolean contains(int j) {
+    return Arrays.binarySearch(successors, from, to, j) >= 0;
+  }
+
+  @Override
+  public NatBitSet support() {
+    if (support == null) {
+      NatBitSet set = NatBitSets.set();
+      for (int i = from; i < to; i++) {
+        set.set(successors[i]);
+      }
+      support = set;
+    }
+    return support;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return false;
+  }
+
+  @Override
+  public int size() {
+    return to - from;
+  }
+
+  @Override
+  public double sum() {
+    double d = 0.0;
+    for (int i = from; i < to; i++) {
+      d += probabilities[i];
+    }
+    return d;
+  }
+
+  @Override
+  public double sumWeighted(double[] array) {
+    double d = 0.0;
+    for (int i = from; i < to; i++) {
+      d += array[successors[i]] * probabilities[i];
+    }
+    return d;
+  }
+
+  @Override
+  public double sumWeighted(IntToDoubleFunction f) {
+    double d = 0.0;
+    for (int i = from; i < to; i++) {
+      d += f.applyAsDouble(successors[i]) * probabilities[i];
+    }
+    return d;
+  }
+
+  @Override
+  public double sumWeightedExceptJacobi(IntToDoubleFunction f, int state) {
+    double sum = 0.0d;
+    double weight = 0.0d;
+    for (int i = from; i < to; i++) {
+      int s = successors[i];
+      if (s != state) {
+        double probability = probabilities[i];
+        sum += f.applyAsDouble(s) * probability;
+        weight += probability;
+      }
+    }
+    return weight == 0.0d ? 0.0d : sum / weight;
+  }
+
+  @Override
+  public boolean sumWeightedExceptJacobi(IntToDoubleFunction lower, IntToDoubleFunction upper,
+      int state, double[] result) {
+    return Distributions.sumWeightedExceptJacobi(successors, probabilities, from, to, lower,
+        upper, state, result);
+  }
+
+  @Override
+  public int sample() {
+    int sample = Sample.sample(probabilities, from, to);
+    return sample == -1 ? -1 : successors[sample];
+  }
+
+  @Override
+  public int sampleWeighted(WeightFunction weights) {
+    double[] weightArray = new double[to - from];
+    for (int i = from; i < to; i++) {
+      weightArray[i - from] = weights.accept(successors[i], probabilities[i]);
+    }
+    int sample = Sample.sample(weightArray);
+    return sample == -1 ? -1 : successors[from + sample];
+  }
+
+  @Override
+  public DistributionBuilder map(IntUnaryOperator map) {
+    DistributionBuilder builder = Distributions.defaultBuilder();
+    for (int i = from; i < to; i++) {
+      int key = map.applyAsInt(successors[i]);
+      if (key >= 0) {
+        builder.add(key, probabilities[i]);
+      }
+    }
+    return builder;
+  }
+
+  @Override
+  public void forEach(DistributionConsumer action) {
+    for (int i = from; i < to; i++) {
+      action.accept(successors[i], probabilities[i]);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Distribution)) {
+      return false;
+    }
+    Distribution other = (Distribution) o;
+    if (other.size() != size()) {
+      return false;
+    }
+    for (int i = from; i < to; i++) {
+      int successor = successors[i];
+      if (!other.contains(successor) || !Util.isEqual(probabilities[i], other.get(successor))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    // Same as support().hashCode() by the Set contract, without building the support
+    int hash = 0;
+    for (int i = from; i < to; i++) {
+      hash += successors[i];
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("{");
+    for (int i = from; i < to; i++) {
+      builder.append(successors[i]).append(": ").append(probabilities[i]);
+      if (i < to - 1) {
+        builder.append(", ");
+      }
+    }
+    builder.append('}');
+    return builder.toString();
+  }
+
+  @Override
+  public Iterator<Map.Entry<Integer, Double>> objectIterator() {
+    Iterator<Int2DoubleMap.Entry> iterator = iterator();
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Map.Entry<Integer, Double> next() {
+        return iterator.next();
+      }
+    };
+  }
+
+  @Override
+  public Iterator<Int2DoubleMap.Entry> iterator() {
+    return new Iterator<>() {
+      private int index = from;
+
+      @Override
+      public boolean hasNext() {
+        return index < to;
+      }
+
+      @Override
+      public Int2DoubleMap.Entry next() {
+        if (index == to) {
+          throw new NoSuchElementException();
+        }
+        var entry = new AbstractInt2DoubleMap.BasicEntry(successors[index], probabilities[index]);
+        index += 1;
+        return entry;
+      }
+    };
+  }
+}
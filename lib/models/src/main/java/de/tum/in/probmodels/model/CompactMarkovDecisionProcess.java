@@ -0,0 +1,509 @@
+package de.tum.in.probmodels.model;
+
+import explicit.NondetModelSimple;
+import explicit.SuccessorsIterator;
+import it.unimi.dsi.fastutil.ints.IntIterators;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import prism.ModelType;
+import prism.PrismLog;
+import strat.MDStrategy;
+
+/**
+ * MDP which stores its transitions in compressed sparse row form: Each state points to a block
+ * of choices, each choice points to a slice of the parallel successor / probability arrays. A
+ * transition thus costs 12 bytes and a choice 12 bytes plus its label reference, independent of
+ * the number of states.
+ *
+ * <p>Blocks are appended as states are explored. Replaced choices are never overwritten but
+ * abandoned, and the arrays are compacted into state order once more than half of them is
+ * garbage. Hence, distributions handed out by {@link #getChoice(int, int)} are stable views.</p>
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public class CompactMarkovDecisionProcess extends DefaultModel
+    implements explicit.MDP, NondetModelSimple {
+  private static final int NO_CHOICES = -1;
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int MINIMAL_COMPACTION_SIZE = 1 << 12;
+
+  // state -> first choice and number of choices
+  private int[] stateChoiceOffset = new int[0];
+  private int[] stateChoiceCount = new int[0];
+
+  // choice -> first transition and number of transitions (-1 / 0 for empty distributions)
+  private int[] choiceTransitionOffset = new int[INITIAL_CAPACITY];
+  private int[] choiceTransitionCount = new int[INITIAL_CAPACITY];
+  private Object[] choiceLabel = new Object[INITIAL_CAPACITY];
+  private int choiceSize = 0;
+  private int liveChoices = 0;
+
+  // transition -> successor and probability, sorted by successor within a choice
+  private int[] successors = new int[INITIAL_CAPACITY];
+  private double[] probabilities = new double[INITIAL_CAPACITY];
+  private int transitionSize = 0;
+  private int liveTransitions = 0;
+
+  private void ensureStateCapacity(int state) {
+    int length = stateChoiceOffset.length;
+    if (state < length) {
+      return;
+    }
+    int newLength = Math.max(state + 1, Math.max(INITIAL_CAPACITY, length + (length >> 1)));
+    stateChoiceOffset = Arrays.copyOf(stateChoiceOffset, newLength);
+    stateChoiceCount = Arrays.copyOf(stateChoiceCount, newLength);
+    Arrays.fill(stateChoiceOffset, length, newLength, NO_CHOICES);
+  }
+
+  private void ensureChoiceCapacity(int additional) {
+    int required = choiceSize + additional;
+    int length = choiceTransitionOffset.length;
+    if (required <= length) {
+      return;
+    }
+    int newLength = Math.max(required, length + (length >> 1));
+    choiceTransitionOffset = Arrays.copyOf(choiceTransitionOffset, newLength);
+    choiceTransitionCount = Arrays.copyOf(choiceTransitionCount, newLength);
+    choiceLabel = Arrays.copyOf(choiceLabel, newLength);
+  }
+
+  private void ensureTransitionCapacity(int additional) {
+    int required = transitionSize + additional;
+    int length = successors.length;
+    if (required <= length) {
+      return;
+    }
+    int newLength = Math.max(required, length + (length >> 1));
+    successors = Arrays.copyOf(successors, newLength);
+    probabilities = Arrays.copyOf(probabilities, newLength);
+  }
+
+  private int choiceIndex(int state, int action) {
+    assert state < getNumStates();
+    int count = state < stateChoiceCount.length ? stateChoiceCount[state] : 0;
+    if (action < 0 || action >= count) {
+      throw new IndexOutOfBoundsException(
+          String.format("Action %d of state %d with %d choices", action, state, count));
+    }
+    return stateChoiceOffset[state] + action;
+  }
+
+  // Appends the transitions of the distribution, returns the offset of the stored slice
+  private int storeDistribution(Distribution distribution) {
+    if (distribution instanceof CompactDistribution
+        && ((CompactDistribution) distribution).isSliceOf(successors)) {
+      // Already stored in the current arrays - slices are never overwritten, share it
+      liveTransitions += distribution.size();
+      return ((CompactDistribution) distribution).offset();
+    }
+
+    int size = distribution.size();
+    ensureTransitionCapacity(size);
+    int offset = transitionSize;
+    int[] successors = this.successors;
+    double[] probabilities = this.probabilities;
+    int[] index = {offset};
+    distribution.forEach((successor, probability) -> {
+      int position = index[0];
+      successors[position] = successor;
+      probabilities[position] = probability;
+      index[0] = position + 1;
+    });
+    assert index[0] == offset + size;
+    sortSlice(successors, probabilities, offset, offset + size);
+
+    transitionSize += size;
+    liveTransitions += size;
+    return offset;
+  }
+
+  private static void sortSlice(int[] successors, double[] probabilities, int from, int to) {
+    // Distributions built by the builders are already sorted, insertion sort for the rest
+    for (int i = from + 1; i < to; i++) {
+      int successor = successors[i];
+      if (successors[i - 1] < successor) {
+        continue;
+      }
+      double probability = probabilities[i];
+      int j = i - 1;
+      while (j >= from && successors[j] > successor) {
+        successors[j + 1] = successors[j];
+        probabilities[j + 1] = probabilities[j];
+        j -= 1;
+      }
+      successors[j + 1] = successor;
+      probabilities[j + 1] = probability;
+    }
+  }
+
+  private void setChoiceData(int choice, Distribution distribution, Object label) {
+    if (distribution.isEmpty()) {
+      choiceTransitionOffset[choice] = -1;
+      choiceTransitionCount[choice] = 0;
+    } else {
+      choiceTransitionOffset[choice] = storeDistribution(distribution);
+      choiceTransitionCount[choice] = distribution.size();
+    }
+    choiceLabel[choice] = label;
+  }
+
+  private void releaseChoice(int choice) {
+    liveTransitions -= choiceTransitionCount[choice];
+    choiceTransitionCount[choice] = 0;
+    choiceTransitionOffset[choice] = -1;
+    choiceLabel[choice] = null;
+  }
+
+  private Distribution distribution(int choice) {
+    int count = choiceTransitionCount[choice];
+    if (count == 0) {
+      return EmptyDistribution.INSTANCE;
+    }
+    int offset = choiceTransitionOffset[choice];
+    return new CompactDistribution(successors, probabilities, offset, offset + count);
+  }
+
+  private void appendChoice(int state, Distribution distribution, Object label) {
+    ensureStateCapacity(state);
+    int count = stateChoiceCount[state];
+    int offset = stateChoiceOffset[state];
+    if (count == 0 || offset + count != choiceSize) {
+      // The block of this state is not at the end - move it there
+      ensureChoiceCapacity(count + 1);
+      int newOffset = choiceSize;
+      if (count > 0) {
+        System.arraycopy(choiceTransitionOffset, offset, choiceTransitionOffset, newOffset, count);
+        System.arraycopy(choiceTransitionCount, offset, choiceTransitionCount, newOffset, count);
+        System.arraycopy(choiceLabel, offset, choiceLabel, newOffset, count);
+        Arrays.fill(choiceLabel, offset, offset + count, null);
+      }
+      stateChoiceOffset[state] = newOffset;
+      choiceSize += count;
+    } else {
+      ensureChoiceCapacity(1);
+    }
+    setChoiceData(choiceSize, distribution, label);
+    choiceSize += 1;
+    liveChoices += 1;
+    stateChoiceCount[state] = count + 1;
+    compactIfWasteful();
+  }
+
+  private void compactIfWasteful() {
+    int wastedTransitions = transitionSize - liveTransitions;
+    int wastedChoices = choiceSize - liveChoices;
+    if (wastedTransitions > Math.max(liveTransitions, MINIMAL_COMPACTION_SIZE)
+        || wastedChoices > Math.max(liveChoices, MINIMAL_COMPACTION_SIZE)) {
+      compact();
+    }
+  }
+
+  // Rewrites all arrays in state order. Old arrays are left untouched for outstanding views.
+  private void compact() {
+    int[] newChoiceOffset = new int[Math.max(liveChoices, INITIAL_CAPACITY)];
+    int[] newChoiceCount = new int[newChoiceOffset.length];
+    Object[] newChoiceLabel = new Object[newChoiceOffset.length];
+    int[] newSuccessors = new int[Math.max(liveTransitions, INITIAL_CAPACITY)];
+    double[] newProbabilities = new double[newSuccessors.length];
+
+    int choicePosition = 0;
+    int transitionPosition = 0;
+    for (int state = 0; state < stateChoiceOffset.length; state++) {
+      int count = stateChoiceCount[state];
+      if (count == 0) {
+        continue;
+      }
+      int offset = stateChoiceOffset[state];
+      stateChoiceOffset[state] = choicePosition;
+      for (int choice = offset; choice < offset + count; choice++) {
+        int transitionCount = choiceTransitionCount[choice];
+        if (transitionCount == 0) {
+          newChoiceOffset[choicePosition] = -1;
+        } else {
+          int transitionOffset = choiceTransitionOffset[choice];
+          System.arraycopy(successors, transitionOffset,
+              newSuccessors, transitionPosition, transitionCount);
+          System.arraycopy(probabilities, transitionOffset,
+              newProbabilities, transitionPosition, transitionCount);
+          newChoiceOffset[choicePosition] = transitionPosition;
+          transitionPosition += transitionCount;
+        }
+        newChoiceCount[choicePosition] = transitionCount;
+        newChoiceLabel[choicePosition] = choiceLabel[choice];
+        choicePosition += 1;
+      }
+    }
+    assert choicePosition == liveChoices && transitionPosition == liveTransitions;
+
+    choiceTransitionOffset = newChoiceOffset;
+    choiceTransitionCount = newChoiceCount;
+    choiceLabel = newChoiceLabel;
+    choiceSize = choicePosition;
+    successors = newSuccessors;
+    probabilities = newProbabilities;
+    transitionSize = transitionPosition;
+  }
+
+  /**
+   * Explicitly compacts the storage into state order, e.g. after a model has been fully built.
+   */
+  public void trimToSize() {
+    compact();
+  }
+
+  @Override
+  public void clearState(int s) {
+    if (s >= stateChoiceCount.length) {
+      return;
+    }
+    int offset = stateChoiceOffset[s];
+    int count = stateChoiceCount[s];
+    for (int choice = offset; choice < offset + count; choice++) {
+      releaseChoice(choice);
+    }
+    liveChoices -= count;
+    stateChoiceCount[s] = 0;
+    stateChoiceOffset[s] = NO_CHOICES;
+    choicesChanged(s);
+  }
+
+  @Override
+  public void addChoice(int s, Distribution distribution) {
+    assert s < getNumStates();
+    appendChoice(s, distribution, null);
+    choiceAdded(s, distribution);
+  }
+
+  @Override
+  public void addChoice(int state, Action action) {
+    assert state < getNumStates();
+    appendChoice(state, action.distribution(), action.label());
+    choiceAdded(state, action.distribution());
+  }
+
+  @Override
+  public ModelType getModelType() {
+    return null;
+  }
+
+  @Override
+  public int getNumTransitions() {
+    return liveTransitions;
+  }
+
+  @Override
+  public int getNumChoices(int s) {
+    assert s < getNumStates();
+    return s < stateChoiceCount.length ? stateChoiceCount[s] : 0;
+  }
+
+  @Override
+  public int getMaxNumChoices() {
+    int max = -1;
+    for (int count : stateChoiceCount) {
+      max = Math.max(max, count);
+    }
+    return max;
+  }
+
+  @Override
+  public int getNumChoices() {
+    return liveChoices;
+  }
+
+  @Override
+  public Object getActionLabel(int state, int action) {
+    return getAction(state, action);
+  }
+
+  @Override
+  public Object getAction(int s, int i) {
+    return choiceLabel[choiceIndex(s, i)];
+  }
+
+  @Override
+  public boolean areAllChoiceActionsUnique() {
+    return false;
+  }
+
+  @Override
+  public boolean allSuccessorsInSet(int s, int i, BitSet set) {
+    int choice = choiceIndex(s, i);
+    int offset = choiceTransitionOffset[choice];
+    int to = offset + choiceTransitionCount[choice];
+    for (int transition = offset; transition < to; transition++) {
+      if (!set.get(successors[transition])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean someSuccessorsInSet(int s, int i, BitSet set) {
+    int choice = choiceIndex(s, i);
+    int offset = choiceTransitionOffset[choice];
+    int to = offset + choiceTransitionCount[choice];
+    for (int transition = offset; transition < to; transition++) {
+      if (set.get(successors[transition])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public Iterator<Integer> getSuccessorsIterator(int s, int i) {
+    int choice = choiceIndex(s, i);
+    int count = choiceTransitionCount[choice];
+    return count == 0
+        ? IntIterators.EMPTY_ITERATOR
+        : IntIterators.wrap(successors, choiceTransitionOffset[choice], count);
+  }
+
+  @Override
+  public SuccessorsIterator getSuccessors(int s, int i) {
+    return SuccessorsIterator.from(getSuccessorsIterator(s, i), true);
+  }
+
+  @Override
+  public explicit.Model constructInducedModel(MDStrategy strategy) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void exportToDotFileWithStrat(PrismLog out, BitSet mark, int[] strategy) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int getNumTransitions(int s, int i) {
+    return choiceTransitionCount[choiceIndex(s, i)];
+  }
+
+  @Override
+  @Deprecated
+  public Iterator<Map.Entry<Integer, Double>> getTransitionsIterator(int s, int i) {
+    return getChoice(s, i).objectIterator();
+  }
+
+  @Override
+  public Distribution getChoice(int state, int action) {
+    return distribution(choiceIndex(state, action));
+  }
+
+  @Override
+  public void setActions(int state, List<Action> actions) {
+    assert state < getNumStates();
+    ensureStateCapacity(state);
+    int count = stateChoiceCount[state];
+    int offset = stateChoiceOffset[state];
+    int newCount = actions.size();
+
+    // Store the new choices before releasing the old ones, the new list might share slices
+    int newOffset;
+    if (newCount <= count) {
+      newOffset = offset;
+      int[] oldTransitionCounts = Arrays.copyOfRange(choiceTransitionCount, offset, offset + count);
+      for (int i = 0; i < newCount; i++) {
+        Action action = actions.get(i);
+        setChoiceData(offset + i, action.distribution(), action.label());
+      }
+      for (int i = newCount; i < count; i++) {
+        choiceLabel[offset + i] = null;
+      }
+      for (int transitionCount : oldTransitionCounts) {
+        liveTransitions -= transitionCount;
+      }
+    } else {
+      ensureChoiceCapacity(newCount);
+      newOffset = choiceSize;
+      for (int i = 0; i < newCount; i++) {
+        Action action = actions.get(i);
+        setChoiceData(newOffset + i, action.distribution(), action.label());
+      }
+      choiceSize += newCount;
+      for (int choice = offset; choice < offset + count; choice++) {
+        releaseChoice(choice);
+      }
+    }
+    liveChoices += newCount - count;
+    stateChoiceCount[state] = newCount;
+    stateChoiceOffset[state] = newCount == 0 ? NO_CHOICES : newOffset;
+    compactIfWasteful();
+    choicesChanged(state);
+  }
+
+  @Override
+  public List<Action> getActions(int state) {
+    int count = getNumChoices(state);
+    if (count == 0) {
+      return new ArrayList<>(0);
+    }
+    // A fresh snapshot, see Model#getActions: modifications only take effect through setActions
+    int offset = stateChoiceOffset[state];
+    List<Action> actions = new ArrayList<>(count);
+    for (int choice = offset; choice < offset + count; choice++) {
+      actions.add(Action.of(distribution(choice), choiceLabel[choice]));
+    }
+    return actions;
+  }
+
+  @Override
+  public void setChoice(int state, int action, Distribution distribution) {
+    int choice = choiceIndex(state, action);
+    liveTransitions -= choiceTransitionCount[choice];
+    setChoiceData(choice, distribution, null);
+    compactIfWasteful();
+    choicesChanged(state);
+  }
+
+  @Override
+  public List<Distribution> getChoices(int state) {
+    int count = getNumChoices(state);
+    if (count == 0) {
+      return Collections.emptyList();
+    }
+    Distribution[] distributions = new Distribution[count];
+    int offset = stateChoiceOffset[state];
+    for (int i = 0; i < count; i++) {
+      distributions[i] = distribution(offset + i);
+    }
+    return new AbstractList<>() {
+      @Override
+      public Distribution get(int index) {
+        return distributions[index];
+      }
+
+      @Override
+      public int size() {
+        return distributions.length;
+      }
+    };
+  }
+
+  @Override
+  public void forEachChoice(int state, Consumer<Distribution> action) {
+    int count = getNumChoices(state);
+    int offset = count == 0 ? 0 : stateChoiceOffset[state];
+    for (int choice = offset; choice < offset + count; choice++) {
+      action.accept(distribution(choice));
+    }
+  }
+
+  @Override
+  public void forEachTransition(int state, int action, TransitionConsumer consumer) {
+    int choice = choiceIndex(state, action);
+    int offset = choiceTransitionOffset[choice];
+    int to = offset + choiceTransitionCount[choice];
+    for (int transition = offset; transition < to; transition++) {
+      consumer.accept(successors[transition], probabilities[transition]);
+    }
+  }
+}
@@ -1,12 +1,19 @@
 package de.tum.in.probmodels.model;
 
+import de.tum.in.naturals.set.NatBitSet;
+import de.tum.in.naturals.set.NatBitSets;
+import explicit.PredecessorRelation;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
 import java.util.Collection;
+import prism.PrismComponent;
 
 public abstract class DefaultModel extends AbstractModel {
   private final IntList initialStates = new IntArrayList();
   private int numStates = 0;
+  // Built on the first predecessor query, afterwards kept up to date on every change of choices
+  private PredecessorIndex predecessorIndex = null;
+  private PredecessorRelation storedPredecessorRelation = null;
 
   @Override
   public int addState() {
@@ -39,4 +46,65 @@ public abstract class DefaultModel extends AbstractModel {
   public IntList getInitialStates() {
     return initialStates;
   }
+
+  // The returned list is an unmodifiable view which changes with the model
+  @Override
+  public IntList getPredecessors(int state) {
+    return predecessorIndex().predecessors(state);
+  }
+
+  private PredecessorIndex predecessorIndex() {
+    if (predecessorIndex == null) {
+      PredecessorIndex index = new PredecessorIndex();
+      for (int state = 0; state < getNumStates(); state++) {
+        index.update(state, successorSet(state));
+      }
+      predecessorIndex = index;
+    }
+    return predecessorIndex;
+  }
+
+  private NatBitSet successorSet(int state) {
+    NatBitSet successors = NatBitSets.set();
+    forEachChoice(state, distribution -> successors.or(distribution.support()));
+    return successors;
+  }
+
+  // Has to be called by implementations after the choices of the state have been replaced or removed
+  protected void choicesChanged(int state) {
+    storedPredecessorRelation = null;
+    if (predecessorIndex != null) {
+      predecessorIndex.update(state, successorSet(state));
+    }
+  }
+
+  // Has to be called by implementations after a choice has been added to the state
+  protected void choiceAdded(int state, Distribution distribution) {
+    storedPredecessorRelation = null;
+    if (predecessorIndex != null) {
+      predecessorIndex.addSuccessors(state, distribution.support());
+    }
+  }
+
+  @Override
+  public boolean hasStoredPredecessorRelation() {
+    return storedPredecessorRelation != null;
+  }
+
+  @Override
+  public PredecessorRelation getPredecessorRelation(PrismComponent parent, boolean storeIfNew) {
+    if (storedPredecessorRelation != null) {
+      return storedPredecessorRelation;
+    }
+    PredecessorRelation relation = super.getPredecessorRelation(parent, storeIfNew);
+    if (storeIfNew) {
+      storedPredecessorRelation = relation;
+    }
+    return relation;
+  }
+
+  @Override
+  public void clearPredecessorRelation() {
+    storedPredecessorRelation = null;
+  }
 }
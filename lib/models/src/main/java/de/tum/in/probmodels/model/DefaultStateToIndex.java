@@ -0,0 +1,50 @@
+package de.tum.in.probmodels.model;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+public class DefaultStateToIndex<S> implements StateToIndex<S> {
+  private final Object2IntMap<S> stateMap = new Object2IntOpenHashMap<>();
+  // Ids are dense, so the reverse direction is a plain list indexed by id.
+  private final ObjectArrayList<S> states = new ObjectArrayList<>();
+
+  public DefaultStateToIndex() {
+    stateMap.defaultReturnValue(-1);
+  }
+
+  @Override
+  public void addState(S state, int stateId) {
+    checkArgument(stateId == states.size(), "Non-sequential state id %s", stateId);
+    stateMap.put(state, stateId);
+    states.add(state);
+  }
+
+  @Override
+  public int getStateId(S state) {
+    return stateMap.getInt(state);
+  }
+
+  @Override
+  public boolean check(int stateId) {
+    return 0 <= stateId && stateId < states.size()
+        && stateMap.getInt(states.get(stateId)) == stateId;
+  }
+
+  @Override
+  public boolean contains(S state) {
+    return stateMap.containsKey(state);
+  }
+
+  @Override
+  public S getState(int stateId) {
+    return states.get(stateId);
+  }
+
+  @Override
+  public int size() {
+    return states.size();
+  }
+}
@@ -47,13 +47,50 @@ public interface Distribution extends Iterable<Int2DoubleMap.Entry> {
 
   double sumWeightedExceptJacobi(IntToDoubleFunction f, int state);
 
+  // Fused variant of sumWeightedExceptJacobi for two functions: stores the results for lower and
+  // upper in result[0] and result[1] and returns false if state is the only successor.
+  // Implementations backed by arrays override this with a plain loop over them.
+  default boolean sumWeightedExceptJacobi(IntToDoubleFunction lower, IntToDoubleFunction upper,
+      int state, double[] result) {
+    double lowerSum = 0.0d;
+    double upperSum = 0.0d;
+    double weight = 0.0d;
+    for (Int2DoubleMap.Entry entry : this) {
+      int s = entry.getIntKey();
+      if (s != state) {
+        double probability = entry.getDoubleValue();
+        lowerSum += lower.applyAsDouble(s) * probability;
+        upperSum += upper.applyAsDouble(s) * probability;
+        weight += probability;
+      }
+    }
+    if (weight == 0.0d) {
+      return false;
+    }
+    result[0] = lowerSum / weight;
+    result[1] = upperSum / weight;
+    return true;
+  }
+
 
   int sample();
 
+  // Stores count samples in out[0] up to (excluding) out[count].
+  default void sample(int count, int[] out) {
+    for (int i = 0; i < count; i++) {
+      out[i] = sample();
+    }
+  }
+
   int sampleWeighted(WeightFunction weights);
 
   DistributionBuilder map(IntUnaryOperator map);
 
+  // Same as map(map).scaled(), implementations may avoid the intermediate builder.
+  default Distribution mapScaled(IntUnaryOperator map) {
+    return map(map).scaled();
+  }
+
   void forEach(DistributionConsumer action);
 
   @Deprecated
@@ -1,5 +1,7 @@
 package de.tum.in.probmodels.model;
 
+import java.util.function.IntToDoubleFunction;
+
 public final class Distributions {
   private Distributions() {
     // empty
@@ -14,4 +16,28 @@ public final class Distributions {
     builder.add(key, value);
     return builder.build();
   }
+
+  // Distribution#sumWeightedExceptJacobi on the transitions from (inclusive) to to (exclusive) of
+  // parallel successor and probability arrays, shared by the array based distributions.
+  static boolean sumWeightedExceptJacobi(int[] successors, double[] probabilities, int from,
+      int to, IntToDoubleFunction lower, IntToDoubleFunction upper, int state, double[] result) {
+    double lowerSum = 0.0d;
+    double upperSum = 0.0d;
+    double weight = 0.0d;
+    for (int i = from; i < to; i++) {
+      int s = successors[i];
+      if (s != state) {
+        double probability = probabilities[i];
+        lowerSum += lower.applyAsDouble(s) * probability;
+        upperSum += upper.applyAsDouble(s) * probability;
+        weight += probability;
+      }
+    }
+    if (weight == 0.0d) {
+      return false;
+    }
+    result[0] = lowerSum / weight;
+    result[1] = upperSum / weight;
+    return true;
+  }
 }
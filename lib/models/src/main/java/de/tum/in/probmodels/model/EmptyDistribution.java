@@ -47,6 +47,12 @@ public final class EmptyDistribution implements Distribution {
     return 0.0d;
   }
 
+  @Override
+  public boolean sumWeightedExceptJacobi(IntToDoubleFunction lower, IntToDoubleFunction upper,
+      int state, double[] result) {
+    return false;
+  }
+
   @Override
   public int sample() {
     return -1;
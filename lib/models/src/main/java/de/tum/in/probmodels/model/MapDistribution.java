@@ -163,7 +163,12 @@ public class MapDistribution implements Distribution {
   @Override
   public int hashCode() {
     if (lazyHash == 0) {
-      lazyHash = support.hashCode();
+      // Same as support.hashCode() by the Set contract, consistent with the array distributions
+      int hash = 0;
+      for (int key : map.keySet()) {
+        hash += key;
+      }
+      lazyHash = hash;
     }
     return lazyHash;
   }
@@ -26,6 +26,7 @@ public class MarkovChain extends DefaultModel implements DTMC {
     Distribution distribution = transitions.remove(i);
     if (distribution != null) {
       numTransitions -= distribution.size();
+      choicesChanged(i);
     }
   }
 
@@ -125,6 +126,7 @@ public class MarkovChain extends DefaultModel implements DTMC {
     Distribution oldValue = transitions.put(state, checkNotNull(distribution));
     checkArgument(oldValue == null, "MarkovChain can only have one distribution");
     numTransitions += distribution.size();
+    choiceAdded(state, distribution);
   }
 
   @Override
@@ -141,6 +143,7 @@ public class MarkovChain extends DefaultModel implements DTMC {
       numTransitions -= oldValue.size();
     }
     numTransitions += distribution.size();
+    choicesChanged(state);
   }
 
   @Override
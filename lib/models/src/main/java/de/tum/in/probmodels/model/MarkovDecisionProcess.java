@@ -27,6 +27,7 @@ public class MarkovDecisionProcess extends DefaultModel
   @Override
   public void clearState(int s) {
     transitions.remove(s);
+    choicesChanged(s);
   }
 
   @Override
@@ -35,6 +36,7 @@ public class MarkovDecisionProcess extends DefaultModel
     List<Action> distributions = getTransitions(s);
     distributions.add(Action.of(distribution));
     numTransitions += 1;
+    choiceAdded(s, distribution);
   }
 
   @Override
@@ -43,6 +45,7 @@ public class MarkovDecisionProcess extends DefaultModel
     List<Action> distributions = getTransitions(state);
     distributions.add(action);
     numTransitions += 1;
+    choiceAdded(state, action.distribution());
   }
 
   @Override
@@ -71,6 +74,11 @@ public class MarkovDecisionProcess extends DefaultModel
     return transitions.values().stream().mapToInt(List::size).sum();
   }
 
+  @Override
+  public Object getActionLabel(int state, int action) {
+    return getAction(state, action);
+  }
+
   @Override
   public Object getAction(int s, int i) {
     return transitions.get(s).get(i).label();
@@ -130,6 +138,7 @@ public class MarkovDecisionProcess extends DefaultModel
   @Override
   public void setActions(int state, List<Action> actions) {
     transitions.put(state, actions);
+    choicesChanged(state);
   }
 
   @Override
@@ -140,6 +149,7 @@ public class MarkovDecisionProcess extends DefaultModel
   @Override
   public void setChoice(int state, int action, Distribution distribution) {
     transitions.get(state).set(action, Action.of(distribution));
+    choicesChanged(state);
   }
 
   @Override
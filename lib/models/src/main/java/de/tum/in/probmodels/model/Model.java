@@ -32,12 +32,29 @@ public interface Model extends explicit.ModelSimple {
 
   Distribution getChoice(int state, int action);
 
+  // Replaces all actions of the state. The model may keep the given list, so callers must not
+  // modify it afterwards.
   void setActions(int state, List<Action> actions);
 
+  // Returns the actions of the state. Depending on the implementation, this is either the list
+  // backing the model (MarkovDecisionProcess) or a fresh snapshot (CompactMarkovDecisionProcess),
+  // so modifying it in place is not guaranteed to change the model. To change actions, modify the
+  // returned list and pass it to setActions, otherwise treat it as read-only.
   List<Action> getActions(int state);
 
   int getNumChoices(int state);
 
+  default Object getActionLabel(int state, int action) {
+    return getActions(state).get(action).label();
+  }
+
+  // Returns all states with a choice leading to the given state. Implementations which support
+  // this keep track of modifications, hence choices must only be changed through the model. The
+  // result may be a view which changes with the model, so it must not be held across modifications.
+  default IntCollection getPredecessors(int state) {
+    throw new UnsupportedOperationException();
+  }
+
   @FunctionalInterface
   interface TransitionConsumer extends BiConsumer<Integer, Double> {
     void accept(int destination, double probability);
@@ -13,11 +13,11 @@ import de.tum.in.probmodels.generator.Choice;
 import de.tum.in.probmodels.generator.Generator;
 import de.tum.in.probmodels.graph.Mec;
 import it.unimi.dsi.fastutil.ints.IntSet;
-import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.Queue;
 import java.util.function.IntConsumer;
 import java.util.function.IntFunction;
 import java.util.function.IntUnaryOperator;
@@ -28,34 +28,42 @@ public final class ModelBuilder {
   private ModelBuilder() {
   }
 
+  // Builds the complete model breadth-first. Each layer is expanded as one batch of the generator,
+  // hence a generator pool computes the successors of a layer in parallel.
   public static StateToIndex<State> build(Model model, Generator<State> gen) {
-    Queue<State> queue = new ArrayDeque<>(gen.initialStates());
-    StateToIndex<State> stateIndices = new StateToIndex<>();
+    List<State> frontier = new ArrayList<>(gen.initialStates());
+    StateToIndex<State> stateIndices = gen.stateIndex();
 
-    for (State initialState : gen.initialStates()) {
+    for (State initialState : frontier) {
       int id = model.addState();
       stateIndices.addState(initialState, id);
       model.addInitialState(id);
     }
 
-    while (!queue.isEmpty()) {
-      State state = queue.poll();
-      assert stateIndices.contains(state);
-      int stateId = stateIndices.getStateId(state);
-
-      for (Choice<State> choice : gen.choices(state)) {
-        DistributionBuilder builder = Distributions.defaultBuilder();
-        for (var entry : choice.transitions().object2DoubleEntrySet()) {
-          State successor = entry.getKey();
-          if (!stateIndices.contains(successor)) {
-            queue.add(successor);
-            stateIndices.addState(successor, model.addState());
+    while (!frontier.isEmpty()) {
+      List<Collection<Choice<State>>> frontierChoices = gen.choices(frontier);
+      List<State> nextFrontier = new ArrayList<>();
+
+      for (int i = 0; i < frontier.size(); i++) {
+        State state = frontier.get(i);
+        assert stateIndices.contains(state);
+        int stateId = stateIndices.getStateId(state);
+
+        for (Choice<State> choice : frontierChoices.get(i)) {
+          DistributionBuilder builder = Distributions.defaultBuilder();
+          for (var entry : choice.transitions().object2DoubleEntrySet()) {
+            State successor = entry.getKey();
+            if (!stateIndices.contains(successor)) {
+              nextFrontier.add(successor);
+              stateIndices.addState(successor, model.addState());
+            }
+            int successorId = stateIndices.getStateId(successor);
+            builder.add(successorId, entry.getDoubleValue());
           }
-          int successorId = stateIndices.getStateId(successor);
-          builder.add(successorId, entry.getDoubleValue());
+          model.addChoice(stateId, builder.build());
         }
-        model.addChoice(stateId, builder.build());
       }
+      frontier = nextFrontier;
     }
     return stateIndices;
   }
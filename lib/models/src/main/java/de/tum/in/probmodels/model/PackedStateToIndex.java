@@ -0,0 +1,134 @@
+package de.tum.in.probmodels.model;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import java.util.Arrays;
+import parser.State;
+
+/**
+ * State index specialised to PRISM states. Instead of retaining {@link State} objects, each state
+ * is stored as its {@link PrismStateCodec} encoding in a row of a flat long array indexed by id,
+ * and the forward direction is an open-addressing table of ids keyed by these rows. Lookups encode
+ * into a scratch row and thus do not allocate, while {@link #getState(int)} decodes a fresh state
+ * on each call. States with values outside the declared ranges are rejected by the codec. Not
+ * thread-safe.
+ */
+public class PackedStateToIndex implements StateToIndex<State> {
+  private static final int EMPTY = -1;
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final PrismStateCodec codec;
+  private final int width;
+  private final long[] key;
+  // Encoded states, width words per state id
+  private long[] values;
+  private int[] hashes;
+  // Open-addressing table mapping a hash slot to a state id
+  private int[] table;
+  private int mask;
+  private int size = 0;
+
+  public PackedStateToIndex(PrismStateCodec codec) {
+    this.codec = codec;
+    this.width = codec.words();
+    this.key = new long[width];
+    this.values = new long[width * INITIAL_CAPACITY];
+    this.hashes = new int[INITIAL_CAPACITY];
+    this.table = new int[2 * INITIAL_CAPACITY];
+    this.mask = table.length - 1;
+    Arrays.fill(table, EMPTY);
+  }
+
+  private int hash(long[] array, int offset) {
+    int hash = 1;
+    for (int i = 0; i < width; i++) {
+      hash = 31 * hash + Long.hashCode(array[offset + i]);
+    }
+    return HashCommon.mix(hash);
+  }
+
+  // Returns the slot which either holds the id of the given row or is empty.
+  private int slot(long[] array, int offset, int hash) {
+    int pos = hash & mask;
+    while (true) {
+      int id = table[pos];
+      if (id == EMPTY || (hashes[id] == hash && Arrays.equals(values, id * width,
+          (id + 1) * width, array, offset, offset + width))) {
+        return pos;
+      }
+      pos = (pos + 1) & mask;
+    }
+  }
+
+  private void rehash() {
+    int[] newTable = new int[2 * table.length];
+    Arrays.fill(newTable, EMPTY);
+    int newMask = newTable.length - 1;
+    for (int id = 0; id < size; id++) {
+      int pos = hashes[id] & newMask;
+      while (newTable[pos] != EMPTY) {
+        pos = (pos + 1) & newMask;
+      }
+      newTable[pos] = id;
+    }
+    table = newTable;
+    mask = newMask;
+  }
+
+  @Override
+  public void addState(State state, int stateId) {
+    checkArgument(stateId == size, "Non-sequential state id %s", stateId);
+    if (stateId == hashes.length) {
+      int capacity = 2 * hashes.length;
+      hashes = Arrays.copyOf(hashes, capacity);
+      values = Arrays.copyOf(values, width * capacity);
+    }
+    int offset = stateId * width;
+    codec.encode(state, values, offset);
+    int hash = hash(values, offset);
+    int pos = slot(values, offset, hash);
+    assert table[pos] == EMPTY : state;
+
+    hashes[stateId] = hash;
+    table[pos] = stateId;
+    size += 1;
+    if (4 * size > 3 * table.length) {
+      rehash();
+    }
+  }
+
+  @Override
+  public int getStateId(State state) {
+    codec.encode(state, key, 0);
+    return table[slot(key, 0, hash(key, 0))];
+  }
+
+  @Override
+  public boolean check(int stateId) {
+    if (stateId < 0 || stateId >= size) {
+      return false;
+    }
+    int offset = stateId * width;
+    return table[slot(values, offset, hash(values, offset))] == stateId;
+  }
+
+  @Override
+  public boolean contains(State state) {
+    return getStateId(state) != EMPTY;
+  }
+
+  // Decodes and allocates a new state on every call, so this should not be called in hot loops.
+  // Callers evaluating a predicate on states repeatedly should cache the result per id instead,
+  // as the reachability checker does for its targets.
+  @Override
+  public State getState(int stateId) {
+    checkArgument(0 <= stateId && stateId < size, "Unknown state id %s", stateId);
+    return codec.decode(values, stateId * width);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+}
@@ -0,0 +1,131 @@
+package de.tum.in.probmodels.model;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntCollection;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntLists;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Predecessor relation of a model which is maintained incrementally while the model changes. The
+ * index remembers the successors it has been told about for each state, hence an update only costs
+ * the out-degree of the changed state plus the in-degree of the affected successors, and
+ * predecessors are obtained in O(in-degree) instead of a scan over the whole model.
+ *
+ * <p>Not thread-safe.</p>
+ */
+public final class PredecessorIndex {
+  private static final int[] NO_STATES = new int[0];
+
+  // state -> distinct states with a transition to it
+  private IntArrayList[] predecessors = new IntArrayList[0];
+  // state -> sorted successors as of the last update
+  private int[][] successors = new int[0][];
+
+  private void ensureCapacity(int state) {
+    int length = predecessors.length;
+    if (state < length) {
+      return;
+    }
+    int newLength = Math.max(state + 1, length + (length >> 1));
+    predecessors = Arrays.copyOf(predecessors, newLength);
+    successors = Arrays.copyOf(successors, newLength);
+  }
+
+  private int[] storedSuccessors(int state) {
+    if (state >= successors.length || successors[state] == null) {
+      return NO_STATES;
+    }
+    return successors[state];
+  }
+
+  private void addEdge(int state, int successor) {
+    ensureCapacity(successor);
+    IntArrayList list = predecessors[successor];
+    if (list == null) {
+      list = new IntArrayList(2);
+      predecessors[successor] = list;
+    }
+    assert !list.contains(state);
+    list.add(state);
+  }
+
+  private void removeEdge(int state, int successor) {
+    boolean removed = predecessors[successor].rem(state);
+    assert removed;
+  }
+
+  /**
+   * Replaces the successors of the given state, i.e. the union of the supports of all its choices.
+   */
+  public void update(int state, IntCollection newSuccessors) {
+    int[] oldArray = storedSuccessors(state);
+    int[] newArray = newSuccessors.toIntArray();
+    Arrays.sort(newArray);
+
+    // Both arrays are sorted, walk them in parallel and only touch the differences
+    int oldIndex = 0;
+    int newIndex = 0;
+    while (oldIndex < oldArray.length || newIndex < newArray.length) {
+      if (newIndex == newArray.length
+          || (oldIndex < oldArray.length && oldArray[oldIndex] < newArray[newIndex])) {
+        removeEdge(state, oldArray[oldIndex]);
+        oldIndex += 1;
+      } else if (oldIndex == oldArray.length || newArray[newIndex] < oldArray[oldIndex]) {
+        addEdge(state, newArray[newIndex]);
+        newIndex += 1;
+      } else {
+        oldIndex += 1;
+        newIndex += 1;
+      }
+    }
+
+    ensureCapacity(state);
+    successors[state] = newArray.length == 0 ? null : newArray;
+  }
+
+  /**
+   * Adds successors to the given state, e.g. after a choice has been added to it.
+   */
+  public void addSuccessors(int state, IntCollection additionalSuccessors) {
+    int[] oldArray = storedSuccessors(state);
+    IntArrayList added = new IntArrayList();
+    additionalSuccessors.forEach((int successor) -> {
+      if (Arrays.binarySearch(oldArray, successor) < 0) {
+        added.add(successor);
+      }
+    });
+    if (added.isEmpty()) {
+      return;
+    }
+    added.forEach((int successor) -> addEdge(state, successor));
+
+    int[] newArray = Arrays.copyOf(oldArray, oldArray.length + added.size());
+    added.getElements(0, newArray, oldArray.length, added.size());
+    Arrays.sort(newArray);
+    ensureCapacity(state);
+    successors[state] = newArray;
+  }
+
+  // Unmodifiable view, changes with subsequent updates
+  public IntList predecessors(int state) {
+    if (state >= predecessors.length || predecessors[state] == null) {
+      return IntLists.EMPTY_LIST;
+    }
+    return IntLists.unmodifiable(predecessors[state]);
+  }
+
+  public void forEachPredecessor(int state, IntConsumer action) {
+    if (state < predecessors.length && predecessors[state] != null) {
+      predecessors[state].forEach(action);
+    }
+  }
+
+  public int inDegree(int state) {
+    if (state >= predecessors.length || predecessors[state] == null) {
+      return 0;
+    }
+    return predecessors[state].size();
+  }
+}
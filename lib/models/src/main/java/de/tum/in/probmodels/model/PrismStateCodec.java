@@ -0,0 +1,117 @@
+package de.tum.in.probmodels.model;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import parser.State;
+import parser.VarList;
+import parser.type.TypeBool;
+import parser.type.TypeInt;
+
+/**
+ * Packs PRISM states into an array of longs. Each variable occupies just enough bits to represent
+ * its range as given by the {@link VarList}, variables never straddle a word boundary. For typical
+ * models this results in one or two words per state.
+ *
+ * <p>Only boolean and bounded integer variables can be packed, see {@link #supports(VarList)}.
+ * Values outside the declared range are rejected on encoding, since masking them would silently
+ * map different states to the same encoding.</p>
+ */
+public final class PrismStateCodec {
+  private final int variables;
+  private final int words;
+  private final boolean[] isBoolean;
+  private final int[] low;
+  private final int[] word;
+  private final int[] shift;
+  private final long[] mask;
+
+  private PrismStateCodec(VarList varList) {
+    variables = varList.getNumVars();
+    isBoolean = new boolean[variables];
+    low = new int[variables];
+    word = new int[variables];
+    shift = new int[variables];
+    mask = new long[variables];
+
+    int currentWord = 0;
+    int currentBit = 0;
+    for (int i = 0; i < variables; i++) {
+      int bits;
+      if (varList.getType(i) instanceof TypeBool) {
+        isBoolean[i] = true;
+        bits = 1;
+      } else {
+        low[i] = varList.getLow(i);
+        long range = (long) varList.getHigh(i) - varList.getLow(i);
+        bits = 64 - Long.numberOfLeadingZeros(range);
+      }
+      if (currentBit + bits > Long.SIZE) {
+        currentWord += 1;
+        currentBit = 0;
+      }
+      word[i] = currentWord;
+      shift[i] = currentBit;
+      mask[i] = bits == Long.SIZE ? -1L : (1L << bits) - 1;
+      currentBit += bits;
+    }
+    words = currentBit == 0 ? currentWord : currentWord + 1;
+  }
+
+  public static PrismStateCodec of(VarList varList) {
+    checkArgument(supports(varList), "Variables %s cannot be packed", varList);
+    return new PrismStateCodec(varList);
+  }
+
+  // Returns true if all variables are booleans or integers with a range fitting into a long.
+  public static boolean supports(VarList varList) {
+    for (int i = 0; i < varList.getNumVars(); i++) {
+      if (!(varList.getType(i) instanceof TypeBool || varList.getType(i) instanceof TypeInt)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public int words() {
+    return words;
+  }
+
+  public int variables() {
+    return variables;
+  }
+
+  // Writes the encoding of the state to target[offset, offset + words). Throws an
+  // IllegalArgumentException if the state does not match the variables of this codec.
+  public void encode(State state, long[] target, int offset) {
+    Object[] values = state.varValues;
+    if (values.length != variables) {
+      throw new IllegalArgumentException(String.format("State %s has %d variables, expected %d",
+          state, values.length, variables));
+    }
+    for (int i = 0; i < words; i++) {
+      target[offset + i] = 0L;
+    }
+    for (int i = 0; i < variables; i++) {
+      long encoded = isBoolean[i]
+          ? ((Boolean) values[i] ? 1L : 0L)
+          : (long) (Integer) values[i] - low[i];
+      // Unsigned comparison also rejects values below the lower bound
+      if (Long.compareUnsigned(encoded, mask[i]) > 0) {
+        throw new IllegalArgumentException(String.format(
+            "Value %s of variable %d in state %s is out of range", values[i], i, state));
+      }
+      target[offset + word[i]] |= encoded << shift[i];
+    }
+  }
+
+  public State decode(long[] source, int offset) {
+    State state = new State(variables);
+    for (int i = 0; i < variables; i++) {
+      long encoded = (source[offset + word[i]] >>> shift[i]) & mask[i];
+      state.setValue(i, isBoolean[i]
+          ? Boolean.valueOf(encoded != 0L)
+          : Integer.valueOf((int) (encoded + low[i])));
+    }
+    return state;
+  }
+}
@@ -1,42 +1,20 @@
 package de.tum.in.probmodels.model;
 
-import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.objects.Object2IntMap;
-import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+/**
+ * Bidirectional mapping between generator states and the dense state ids handed out by
+ * {@link Model#addState()}. Ids are added in increasing order starting from zero.
+ */
+public interface StateToIndex<S> {
+  void addState(S state, int stateId);
 
-public class StateToIndex<S> {
-  private final Object2IntMap<S> stateMap = new Object2IntOpenHashMap<>();
-  private final Int2ObjectMap<S> indexMap = new Int2ObjectOpenHashMap<>();
+  // Returns the id of the given state or -1 if the state is not known.
+  int getStateId(S state);
 
-  public StateToIndex() {
-    stateMap.defaultReturnValue(-1);
-  }
+  boolean check(int stateId);
 
-  public void addState(S state, int stateId) {
-    assert !indexMap.containsKey(stateId);
-    stateMap.put(state, stateId);
-    indexMap.put(stateId, state);
-  }
+  boolean contains(S state);
 
-  public int getStateId(S state) {
-    return stateMap.getInt(state);
-  }
+  S getState(int stateId);
 
-  public boolean check(int stateId) {
-    return indexMap.containsKey(stateId)
-        && stateMap.getInt(indexMap.get(stateId)) == stateId;
-  }
-
-  public boolean contains(S state) {
-    return stateMap.containsKey(state);
-  }
-
-  public S getState(int stateId) {
-    return indexMap.get(stateId);
-  }
-
-  public int size() {
-    return indexMap.size();
-  }
+  int size();
 }
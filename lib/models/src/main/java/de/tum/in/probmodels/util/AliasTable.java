@@ -0,0 +1,90 @@
+package de.tum.in.probmodels.util;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+/**
+ * Alias table (Vose's method) for sampling indices weighted by fixed values in constant time. The
+ * table is built once in linear time; each sample then costs a single random number instead of a
+ * linear scan over the values as in {@link Sample#sample(double[])}.
+ */
+public final class AliasTable {
+  // Probability of keeping the column index instead of switching to its alias
+  private final double[] acceptance;
+  private final int[] aliases;
+
+  private AliasTable(double[] acceptance, int[] aliases) {
+    this.acceptance = acceptance;
+    this.aliases = aliases;
+  }
+
+  /**
+   * Builds the table for the given values in [from, to). Samples are returned relative to from.
+   * Returns null if there are no values or they sum up to zero.
+   */
+  public static AliasTable of(double[] values, int from, int to) {
+    int size = to - from;
+    double sum = 0.0d;
+    for (int i = from; i < to; i++) {
+      sum += values[i];
+    }
+    if (size == 0 || Util.isZero(sum)) {
+      return null;
+    }
+
+    double[] acceptance = new double[size];
+    int[] aliases = new int[size];
+    IntArrayList small = new IntArrayList();
+    IntArrayList large = new IntArrayList();
+    for (int i = 0; i < size; i++) {
+      // Scale so that the average column is exactly full
+      acceptance[i] = values[from + i] * size / sum;
+      aliases[i] = i;
+      if (acceptance[i] < 1.0d) {
+        small.push(i);
+      } else {
+        large.push(i);
+      }
+    }
+
+    while (!small.isEmpty() && !large.isEmpty()) {
+      int column = small.popInt();
+      int donor = large.popInt();
+      // Fill the remainder of the column with its alias, taking the mass from the donor
+      aliases[column] = donor;
+      acceptance[donor] = (acceptance[donor] + acceptance[column]) - 1.0d;
+      if (acceptance[donor] < 1.0d) {
+        small.push(donor);
+      } else {
+        large.push(donor);
+      }
+    }
+    // Whatever remains is full up to rounding errors
+    while (!large.isEmpty()) {
+      acceptance[large.popInt()] = 1.0d;
+    }
+    while (!small.isEmpty()) {
+      acceptance[small.popInt()] = 1.0d;
+    }
+    return new AliasTable(acceptance, aliases);
+  }
+
+  public int size() {
+    return acceptance.length;
+  }
+
+  public int sample() {
+    // A single uniform value in [0, size) determines both the column (integer part) and whether to
+    // take its alias (fractional part)
+    double value = RandomProvider.current().nextDouble() * acceptance.length;
+    int column = Math.min((int) value, acceptance.length - 1);
+    return value - column < acceptance[column] ? column : aliases[column];
+  }
+
+  // Stores count samples in out[0] up to (excluding) out[count].
+  public void sample(int count, int[] out) {
+    assert count <= out.length;
+    for (int i = 0; i < count; i++) {
+      out[i] = sample();
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package de.tum.in.probmodels.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Unbounded array of references indexed by non-negative ints, which may be read and written
+ * concurrently. Storage is allocated lazily in chunks, so growing never copies or blocks.
+ */
+public final class ConcurrentChunkedArray<T> {
+  private static final int CHUNK_BITS = 14;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final int MAX_CHUNKS = 1 << (Integer.SIZE - 1 - CHUNK_BITS);
+
+  private final AtomicReferenceArray<AtomicReferenceArray<T>> chunks =
+      new AtomicReferenceArray<>(MAX_CHUNKS);
+
+  private AtomicReferenceArray<T> chunk(int index) {
+    int chunkIndex = index >>> CHUNK_BITS;
+    AtomicReferenceArray<T> chunk = chunks.get(chunkIndex);
+    if (chunk == null) {
+      AtomicReferenceArray<T> newChunk = new AtomicReferenceArray<>(CHUNK_SIZE);
+      if (chunks.compareAndSet(chunkIndex, null, newChunk)) {
+        return newChunk;
+      }
+      chunk = chunks.get(chunkIndex);
+    }
+    return chunk;
+  }
+
+  public T get(int index) {
+    assert index >= 0;
+    AtomicReferenceArray<T> chunk = chunks.get(index >>> CHUNK_BITS);
+    return chunk == null ? null : chunk.get(index & CHUNK_MASK);
+  }
+
+  public void set(int index, T value) {
+    assert index >= 0;
+    chunk(index).set(index & CHUNK_MASK, value);
+  }
+
+  public boolean compareAndSet(int index, T expected, T value) {
+    assert index >= 0;
+    return chunk(index).compareAndSet(index & CHUNK_MASK, expected, value);
+  }
+}
@@ -0,0 +1,58 @@
+package de.tum.in.probmodels.util;
+
+import java.util.SplittableRandom;
+
+/**
+ * Source of randomness for sampling, exploration and simulation. Each thread draws from its own
+ * {@link SplittableRandom} stream, so parallel sampling does not contend on a shared generator.
+ * The streams of all threads are split off a common root, hence fixing its seed with
+ * {@link #setSeed(long)} makes single-threaded runs repeatable. With several threads the
+ * assignment of streams depends on the order in which the threads first draw a random number.
+ *
+ * <p>Random numbers should be drawn from {@link #current()} directly and the returned generator
+ * must not be passed to other threads.</p>
+ */
+public final class RandomProvider {
+  private static SplittableRandom root = new SplittableRandom();
+  // Incremented whenever the root is replaced, so that threads discard streams of an old root.
+  // Volatile, so that the check on every draw does not need to synchronize.
+  private static volatile int generation = 0;
+
+  private static final ThreadLocal<Stream> streams = new ThreadLocal<>();
+
+  private RandomProvider() {
+    // Empty
+  }
+
+  private static final class Stream {
+    final int generation;
+    final SplittableRandom random;
+
+    Stream(int generation, SplittableRandom random) {
+      this.generation = generation;
+      this.random = random;
+    }
+  }
+
+  /**
+   * Re-seeds the root generator. Threads switch to a stream of the new root on their next draw.
+   */
+  public static synchronized void setSeed(long seed) {
+    root = new SplittableRandom(seed);
+    generation += 1;
+  }
+
+  // Returns the random generator of the calling thread.
+  public static SplittableRandom current() {
+    Stream stream = streams.get();
+    if (stream == null || stream.generation != generation) {
+      stream = split();
+      streams.set(stream);
+    }
+    return stream.random;
+  }
+
+  private static synchronized Stream split() {
+    return new Stream(generation, root.split());
+  }
+}
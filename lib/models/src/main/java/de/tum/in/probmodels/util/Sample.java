@@ -7,30 +7,32 @@ import it.unimi.dsi.fastutil.ints.Int2DoubleMap;
 import it.unimi.dsi.fastutil.ints.IntList;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 public final class Sample {
-  private static final Random random = new Random();
-
   private Sample() {
     // Empty
   }
 
   public static int sample(int max) {
-    return random.nextInt(max);
+    return RandomProvider.current().nextInt(max);
   }
 
   public static int sample(double[] values) {
-    if (values.length == 0) {
+    return sample(values, 0, values.length);
+  }
+
+  // Samples an index in [from, to) of the given array, weighted by the respective values
+  public static int sample(double[] values, int from, int to) {
+    if (from == to) {
       return -1;
     }
-    if (values.length == 1) {
-      return values[0] == 0.0d ? -1 : 0;
+    if (to - from == 1) {
+      return values[from] == 0.0d ? -1 : from;
     }
 
     double sum = 0.0d;
-    for (double value : values) {
-      sum += value;
+    for (int i = from; i < to; i++) {
+      sum += values[i];
     }
 
     if (isZero(sum)) {
@@ -38,10 +40,10 @@ public final class Sample {
     }
 
     // Sample a random value in [0, sum)
-    double sampledValue = random.nextDouble() * sum;
+    double sampledValue = RandomProvider.current().nextDouble() * sum;
     // Search the successor corresponding to this value
     double partialSum = 0.0d;
-    for (int i = 0; i < values.length; i++) {
+    for (int i = from; i < to; i++) {
       partialSum += values[i];
       if (partialSum >= sampledValue) {
         return i;
@@ -66,7 +68,7 @@ public final class Sample {
     }
 
     // Sample a random value in [0, sum)
-    double sampledValue = random.nextDouble() * sum;
+    double sampledValue = RandomProvider.current().nextDouble() * sum;
     // Search the successor corresponding to this value
     double partialSum = 0.0d;
     for (Int2DoubleMap.Entry entry : distribution.int2DoubleEntrySet()) {
@@ -87,7 +89,7 @@ public final class Sample {
     if (size == 1) {
       return values.getInt(0);
     }
-    return values.getInt(random.nextInt(size));
+    return values.getInt(RandomProvider.current().nextInt(size));
   }
 
   public static int sampleUniform(int[] values, int max) {
@@ -98,7 +100,7 @@ public final class Sample {
     if (max == 1) {
       return values[0];
     }
-    return values[random.nextInt(max)];
+    return values[RandomProvider.current().nextInt(max)];
   }
 
   public static <T> T sampleUniform(List<? extends T> values) {
@@ -106,10 +108,10 @@ public final class Sample {
     if (size == 0) {
       return null;
     }
-    return size == 1 ? values.get(0) : values.get(random.nextInt(size));
+    return size == 1 ? values.get(0) : values.get(RandomProvider.current().nextInt(size));
   }
 
   public static double sampleExponential(double lambda) {
-    return Math.log(1-random.nextDouble())/(-lambda);
+    return Math.log(1-RandomProvider.current().nextDouble())/(-lambda);
   }
 }
@@ -0,0 +1,65 @@
+package de.tum.in.pet.benchmark;
+
+import de.tum.in.probmodels.model.CollapseView;
+import de.tum.in.probmodels.model.MarkovDecisionProcess;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link CollapseView#getChoices(int)} on a view where all MECs of the model are collapsed, both
+ * right after collapsing, when every distribution has to be checked and possibly remapped, and with
+ * all choices cached.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollapseViewBenchmark {
+  @State(Scope.Benchmark)
+  public static class CollapsedView {
+    CollapseView<MarkovDecisionProcess> view;
+
+    @Setup
+    public void setUp(ModelState modelState) {
+      view = new CollapseView<>(modelState.mdp);
+      view.collapse(modelState.components);
+      // Fill the cache of the view
+      getAllChoices(view, modelState.mdp.getNumStates(), null);
+    }
+  }
+
+  private static void getAllChoices(CollapseView<?> view, int numStates, Blackhole blackhole) {
+    for (int state = 0; state < numStates; state++) {
+      if (!view.isRemoved(state)) {
+        Object choices = view.getChoices(state);
+        if (blackhole != null) {
+          blackhole.consume(choices);
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void collapseAndGetChoices(ModelState modelState, Blackhole blackhole) {
+    CollapseView<MarkovDecisionProcess> view = new CollapseView<>(modelState.mdp);
+    blackhole.consume(view.collapse(modelState.components));
+    getAllChoices(view, modelState.mdp.getNumStates(), blackhole);
+  }
+
+  @Benchmark
+  public void getChoicesCached(ModelState modelState, CollapsedView collapsedView,
+      Blackhole blackhole) {
+    getAllChoices(collapsedView.view, modelState.mdp.getNumStates(), blackhole);
+  }
+}
@@ -0,0 +1,103 @@
+package de.tum.in.pet.benchmark;
+
+import de.tum.in.probmodels.model.Distribution;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToDoubleFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Sampling and weighted sums on the distributions of a model, i.e. the inner loops of simulation
+ * and value iteration. Each operation processes all choices of the model once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DistributionBenchmark {
+  private static final int BATCH_SIZE = 64;
+
+  @State(Scope.Benchmark)
+  public static class Choices {
+    List<Distribution> distributions;
+    // The state each distribution belongs to
+    int[] states;
+    // Arbitrary values in [0, 1] for the weighted sums
+    double[] lower;
+    double[] upper;
+    IntToDoubleFunction lowerFunction;
+    IntToDoubleFunction upperFunction;
+
+    @Setup
+    public void setUp(ModelState modelState) {
+      distributions = new ArrayList<>();
+      IntArrayList distributionStates = new IntArrayList();
+      for (int state = 0; state < modelState.mdp.getNumStates(); state++) {
+        for (Distribution distribution : modelState.mdp.getChoices(state)) {
+          distributions.add(distribution);
+          distributionStates.add(state);
+        }
+      }
+      states = distributionStates.toIntArray();
+      int numStates = modelState.mdp.getNumStates();
+      lower = new double[numStates];
+      upper = new double[numStates];
+      Arrays.setAll(lower, state -> (state % 10) / 20.0d);
+      Arrays.setAll(upper, state -> 0.5d + (state % 10) / 20.0d);
+      lowerFunction = state -> lower[state];
+      upperFunction = state -> upper[state];
+    }
+  }
+
+  @Benchmark
+  public void sample(Choices choices, Blackhole blackhole) {
+    for (Distribution distribution : choices.distributions) {
+      blackhole.consume(distribution.sample());
+    }
+  }
+
+  @Benchmark
+  public void sampleBatch(Choices choices, Blackhole blackhole) {
+    int[] samples = new int[BATCH_SIZE];
+    for (Distribution distribution : choices.distributions) {
+      distribution.sample(BATCH_SIZE, samples);
+      blackhole.consume(samples);
+    }
+  }
+
+  @Benchmark
+  public double sumWeighted(Choices choices) {
+    double sum = 0.0d;
+    for (Distribution distribution : choices.distributions) {
+      sum += distribution.sumWeighted(choices.lower);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double sumWeightedExceptJacobi(Choices choices) {
+    double[] result = new double[2];
+    double sum = 0.0d;
+    for (int i = 0; i < choices.states.length; i++) {
+      if (choices.distributions.get(i).sumWeightedExceptJacobi(choices.lowerFunction,
+          choices.upperFunction, choices.states[i], result)) {
+        sum += result[0] + result[1];
+      }
+    }
+    return sum;
+  }
+}
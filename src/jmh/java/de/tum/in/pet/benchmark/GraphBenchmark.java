@@ -0,0 +1,51 @@
+package de.tum.in.pet.benchmark;
+
+import de.tum.in.naturals.set.NatBitSet;
+import de.tum.in.probmodels.graph.CsrGraph;
+import de.tum.in.probmodels.graph.Mec;
+import de.tum.in.probmodels.graph.SccDecomposition;
+import de.tum.in.probmodels.model.MarkovDecisionProcess;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * SCC decomposition of the complete model, in the map-based and the CSR variant, and the
+ * construction of the {@link Mec} objects of the model's MECs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBenchmark {
+  @Benchmark
+  public List<NatBitSet> sccDecomposition(ModelState modelState) {
+    MarkovDecisionProcess mdp = modelState.mdp;
+    return SccDecomposition.computeSccs(state -> mdp.getSuccessors(state), modelState.states,
+        modelState.states::contains, true);
+  }
+
+  // Includes building the graph, as callers of the CSR variant do
+  @Benchmark
+  public List<NatBitSet> sccDecompositionCsr(ModelState modelState) {
+    MarkovDecisionProcess mdp = modelState.mdp;
+    CsrGraph graph = CsrGraph.of(modelState.states,
+        (state, consumer) -> mdp.getSuccessors(state).forEachRemaining(consumer));
+    return SccDecomposition.computeSccs(graph, true);
+  }
+
+  @Benchmark
+  public void mecCreate(ModelState modelState, Blackhole blackhole) {
+    for (NatBitSet component : modelState.components) {
+      blackhole.consume(Mec.create(modelState.mdp, component));
+    }
+  }
+}
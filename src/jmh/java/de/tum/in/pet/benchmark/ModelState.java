@@ -0,0 +1,69 @@
+package de.tum.in.pet.benchmark;
+
+import de.tum.in.naturals.set.NatBitSet;
+import de.tum.in.naturals.set.NatBitSets;
+import de.tum.in.pet.mecGenerator.MdpMecGenerator;
+import de.tum.in.probmodels.generator.MdpGenerator;
+import de.tum.in.probmodels.graph.MecComponentAnalyser;
+import de.tum.in.probmodels.model.MarkovDecisionProcess;
+import de.tum.in.probmodels.model.ModelBuilder;
+import de.tum.in.probmodels.util.PrismHelper;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import java.io.IOException;
+import java.util.List;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import prism.Prism;
+import prism.PrismDevNullLog;
+import prism.PrismException;
+import simulator.ModulesFileModelGenerator;
+
+/**
+ * The explicit model all benchmarks run on. A model is either a random MDP consisting of a single
+ * large MEC, given as "random:numStates" and generated with a fixed seed, or a PRISM model from
+ * data/models, given as "name" or "name:constants". Paths are relative to the project root, which
+ * is the working directory of the jmh task.
+ */
+@State(Scope.Benchmark)
+public class ModelState {
+  private static final String RANDOM_PREFIX = "random:";
+  private static final long SEED = 42L;
+
+  @Param({"random:2000", "random:20000", "csma.2-2", "consensus.2:K=2"})
+  public String model;
+
+  public MarkovDecisionProcess mdp;
+  public IntSet states;
+  // The MECs of the model
+  public List<NatBitSet> components;
+
+  @Setup
+  public void setUp() throws PrismException, IOException {
+    if (model.startsWith(RANDOM_PREFIX)) {
+      int size = Integer.parseInt(model.substring(RANDOM_PREFIX.length()));
+      mdp = new MdpMecGenerator(SEED).createMec(size);
+    } else {
+      mdp = buildPrismModel(model);
+    }
+    states = NatBitSets.boundedFilledSet(mdp.getNumStates());
+    components = new MecComponentAnalyser().findComponents(mdp, states);
+  }
+
+  private static MarkovDecisionProcess buildPrismModel(String specification)
+      throws PrismException, IOException {
+    int separator = specification.indexOf(':');
+    String name = separator == -1 ? specification : specification.substring(0, separator);
+    String constants = separator == -1 ? null : specification.substring(separator + 1);
+
+    PrismHelper.PrismParseResult parse =
+        PrismHelper.parse("data/models/" + name + ".prism", null, constants);
+    Prism prism = new Prism(new PrismDevNullLog());
+    ModulesFileModelGenerator generator = new ModulesFileModelGenerator(parse.modulesFile(), prism);
+
+    MarkovDecisionProcess mdp = new MarkovDecisionProcess();
+    ModelBuilder.build(mdp, new MdpGenerator(generator));
+    return mdp;
+  }
+}
@@ -0,0 +1,61 @@
+package de.tum.in.pet.benchmark;
+
+import de.tum.in.pet.implementation.reachability.UnboundedReachValues;
+import de.tum.in.pet.implementation.reachability.ValueUpdate;
+import de.tum.in.pet.sampler.SuccessorHeuristic;
+import de.tum.in.probmodels.model.Distribution;
+import de.tum.in.probmodels.model.MarkovDecisionProcess;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sweeps of {@link UnboundedReachValues#update(int, List)} over all states of the model, i.e.
+ * value iteration for maximal reachability of an arbitrary target set. The bounds are reset for
+ * every iteration, so the measurement covers both sweeps that change the bounds and sweeps close to
+ * the fixed point.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UnboundedReachValuesBenchmark {
+  // Every TARGET_STRIDE-th state is a target
+  private static final int TARGET_STRIDE = 64;
+
+  @State(Scope.Benchmark)
+  public static class Values {
+    UnboundedReachValues values;
+
+    @Setup(Level.Iteration)
+    public void setUp(ModelState modelState) {
+      values = new UnboundedReachValues(ValueUpdate.MAX_VALUE,
+          state -> state % TARGET_STRIDE == 0, 1.0e-6, SuccessorHeuristic.PROB);
+      for (int state = 0; state < modelState.mdp.getNumStates(); state++) {
+        values.explored(state);
+      }
+    }
+  }
+
+  @Benchmark
+  public void updateSweep(ModelState modelState, Values values) {
+    MarkovDecisionProcess mdp = modelState.mdp;
+    for (int state = 0; state < mdp.getNumStates(); state++) {
+      if (state % TARGET_STRIDE != 0) {
+        List<Distribution> choices = mdp.getChoices(state);
+        values.values.update(state, choices);
+      }
+    }
+  }
+}
@@ -26,6 +26,9 @@ public class InputOptions {
     public static Option outputFile = new Option("o", "outputPath", true, "Path to write the output");
     public static Option maxSuccessorOption = new Option(null, "maxSuccessors", true, "Maximum number of successors in model");
     public static Option deltaTOption = new Option(null, "deltaTMethod", true, "Computation method of Delta T");
+    public static Option mecThreadsOption = new Option(null, "mecThreads", true, "Number of threads running value iteration on independent MECs. (Default: 1)");
+    public static Option updatePropagationOption = new Option(null, "updatePropagation", true, "Propagation of bound updates after sampling for blackbox (SWEEP/WORKLIST). (Default: SWEEP)");
+    public static Option seedOption = new Option(null, "seed", true, "Seed of the random number generators used for sampling, makes single-threaded runs repeatable. (Default: random)");
 
     public static Options getAllInputOptions() {
         modelOption.setRequired(true);
@@ -49,6 +52,9 @@ public class InputOptions {
                 .addOption(simulateMec)
                 .addOption(outputFile)
                 .addOption(maxSuccessorOption)
-                .addOption(deltaTOption);
+                .addOption(deltaTOption)
+                .addOption(mecThreadsOption)
+                .addOption(seedOption)
+                .addOption(updatePropagationOption);
     }
 }
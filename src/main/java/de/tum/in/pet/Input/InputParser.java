@@ -2,6 +2,7 @@ package de.tum.in.pet.Input;
 
 import de.tum.in.pet.implementation.meanPayoff.DeltaTCalculationMethod;
 import de.tum.in.pet.implementation.meanPayoff.SimulateMec;
+import de.tum.in.pet.implementation.meanPayoff.UpdatePropagation;
 import de.tum.in.pet.implementation.reachability.UpdateMethod;
 import de.tum.in.pet.sampler.SuccessorHeuristic;
 import de.tum.in.pet.util.CliHelper;
@@ -50,6 +51,13 @@ public class InputParser {
         DeltaTCalculationMethod deltaTMethod = CliHelper.parseDeltaTCalculationMethod(
                 commandLine.getOptionValue(InputOptions.deltaTOption.getLongOpt()), DefaultInputValues.DELTA_T_CALCULATION_METHOD);
 
+        int mecThreads = parseIntOption(commandLine, InputOptions.mecThreadsOption, DefaultInputValues.MEC_THREADS);
+        Long seed = parseOption(commandLine, InputOptions.seedOption, null, Long::valueOf);
+
+        UpdatePropagation updatePropagation = CliHelper.parseUpdatePropagation(
+                commandLine.getOptionValue(InputOptions.updatePropagationOption.getLongOpt()),
+                DefaultInputValues.UPDATE_PROPAGATION);
+
         return new InputValues(precision,
                 revisitThreshold,
                 maxReward,
@@ -66,7 +74,10 @@ public class InputParser {
                 simulateMec,
                 outputPath,
                 maxSuccessorsInModel,
-                deltaTMethod);
+                deltaTMethod,
+                mecThreads,
+                seed,
+                updatePropagation);
     }
 
     private static long parseLongOption(CommandLine commandLine, Option option, long defaultValue) {
@@ -15,29 +15,33 @@ import de.tum.in.pet.sampler.BoundedStepFunction;
 import de.tum.in.pet.sampler.SuccessorHeuristic;
 import de.tum.in.pet.sampler.UnboundedSampler;
 import de.tum.in.pet.sampler.UnboundedSamplerConfig;
-import de.tum.in.pet.values.Bounds;
 import de.tum.in.probmodels.explorer.DefaultExplorer;
 import de.tum.in.probmodels.explorer.Explorer;
 import de.tum.in.probmodels.generator.CtmcEmbeddingGenerator;
 import de.tum.in.probmodels.generator.CtmcUniformizingGenerator;
 import de.tum.in.probmodels.generator.DtmcGenerator;
 import de.tum.in.probmodels.generator.Generator;
+import de.tum.in.probmodels.generator.GeneratorPool;
 import de.tum.in.probmodels.generator.MdpGenerator;
 import de.tum.in.probmodels.graph.ComponentAnalyser;
+import de.tum.in.probmodels.graph.CsrGraph;
 import de.tum.in.probmodels.graph.MecComponentAnalyser;
+import de.tum.in.probmodels.graph.ParallelSccDecomposition;
 import de.tum.in.probmodels.graph.SccComponentAnalyser;
 import de.tum.in.probmodels.model.Distribution;
 import de.tum.in.probmodels.model.MarkovChain;
-import de.tum.in.probmodels.model.MarkovDecisionProcess;
+import de.tum.in.probmodels.model.CompactMarkovDecisionProcess;
 import de.tum.in.probmodels.model.Model;
 import de.tum.in.probmodels.util.PrismExpressionWrapper;
 import de.tum.in.probmodels.util.PrismHelper;
+import de.tum.in.probmodels.util.PrismWrappedException;
 import de.tum.in.probmodels.util.Util;
 import explicit.CTMC;
 import explicit.CTMCModelChecker;
 import explicit.ConstructModel;
 import explicit.DTMCModelChecker;
 import explicit.ECComputer;
+import explicit.MDP;
 import explicit.MDPModelChecker;
 import explicit.ModelCheckerResult;
 import explicit.NondetModel;
@@ -46,9 +50,9 @@ import explicit.SCCComputer;
 import explicit.SCCConsumerStore;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
-import it.unimi.dsi.fastutil.ints.IntStack;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -63,6 +67,7 @@ import java.util.IntSummaryStatistics;
 import java.util.List;
 import java.util.Map;
 import java.util.OptionalInt;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.logging.Level;
@@ -130,6 +135,9 @@ public final class CoreChecker {
         "The number of extrapolation steps of the reachability query");
     Option extrapolationComplete = new Option(null, "extrapolation-complete", false,
         "Compute extrapolation property on the complete model");
+    Option threadsOption = new Option(null, "threads", true,
+        "Number of threads analysing components and exploring the extrapolation model "
+            + "(default 1)");
 
     modelFileOption.setRequired(true);
 
@@ -150,7 +158,8 @@ public final class CoreChecker {
         .addOption(jsonOutput)
         .addOption(extrapolationProperty)
         .addOption(extrapolationSteps)
-        .addOption(extrapolationComplete);
+        .addOption(extrapolationComplete)
+        .addOption(threadsOption);
 
     HelpFormatter formatter = new HelpFormatter();
 
@@ -180,6 +189,8 @@ public final class CoreChecker {
     var boundedCore = parseOptionalIntOption(boundedOption, commandLine);
     var stabilitySteps = parseOptionalIntOption(stabilityStepsOption, commandLine);
     var boundedValues = parseBoundedValues(boundedUpdateOption, commandLine, precision, heuristic);
+    int threads = parseOptionalIntOption(threadsOption, commandLine, "Number of threads")
+        .orElse(1);
 
     String modelPath = commandLine.getOptionValue(modelFileOption.getLongOpt());
     @Nullable
@@ -248,9 +259,11 @@ public final class CoreChecker {
       logger.log(Level.INFO, "Building complete model");
 
       Timer timer = new Timer();
+      // Always built by PRISM, so that the statistics do not depend on the number of threads
       ConstructModel constructModel = new ConstructModel(mcPrism);
       explicit.Model model = constructModel.constructModel(generator);
-      JSONObject modelJson = analyseModel(mcPrism, model, timer.finish(), componentAnalysis);
+      JSONObject modelJson = analyseModel(mcPrism, model, timer.finish(), componentAnalysis,
+          threads);
 
       resultJson.put("model", modelJson);
     }
@@ -262,7 +275,8 @@ public final class CoreChecker {
       Timer timer = new Timer();
       AnnotatedModel<?> core = buildUnboundedCore(getExplorer(generator, ctmcUniformRate, true),
           new UnboundedCoreValues.Sparse(precision, heuristic));
-      JSONObject modelJson = analyseModel(mcPrism, core.model, timer.finish(), componentAnalysis);
+      JSONObject modelJson = analyseModel(mcPrism, core.model, timer.finish(), componentAnalysis,
+          threads);
       modelJson.put("explored-states", core.exploredStates.size());
       unboundedStats.put(heuristic.toString(), modelJson);
 
@@ -278,30 +292,16 @@ public final class CoreChecker {
       int steps = extrapolationBound.getAsInt();
 
       Timer completeTimer = new Timer();
-      var completeExplorer = getExplorer(new ModulesFileModelGenerator(modulesFile, prism),
-          ctmcUniformRate, false);
-
-      IntSet exploredStates = new IntOpenHashSet(completeExplorer.initialStates());
-      IntStack stack = new IntArrayList(exploredStates);
-
-      while (!stack.isEmpty()) {
-        int state = stack.popInt();
-        for (Distribution choice : completeExplorer.getChoices(state)) {
-          for (int successor : choice.support()) {
-            if (exploredStates.add(successor)) {
-              assert !completeExplorer.isExploredState(state);
-              completeExplorer.exploreState(successor);
-              stack.push(successor);
-            } else {
-              assert completeExplorer.isExploredState(state);
-            }
-          }
-        }
+      Explorer<State, Model> completeExplorer;
+      try (GeneratorPool<State> pool = getGeneratorPool(modulesFile, prism, ctmcUniformRate,
+          threads)) {
+        completeExplorer = getExplorer(pool, modelType, false);
+        exploreCompletely(completeExplorer);
       }
 
       long time = completeTimer.finish();
       JSONObject extrapolationDetails = new JSONObject(Map.of("time", Timer.format(time),
-          "states", exploredStates.size()));
+          "states", completeExplorer.exploredStateCount()));
 
       var completeModel = completeExplorer.model();
       int completeInitialState = completeModel.getInitialStates().iterator().nextInt();
@@ -354,7 +354,8 @@ public final class CoreChecker {
       Timer timer = new Timer();
       var explorer = getExplorer(generator, ctmcUniformRate, false);
       var core = buildBoundedCore(stepBound, explorer, boundedValues.get());
-      JSONObject modelJson = analyseModel(mcPrism, core.model, timer.finish(), componentAnalysis);
+      JSONObject modelJson = analyseModel(mcPrism, core.model, timer.finish(), componentAnalysis,
+          threads);
       modelJson.put("explored-states", core.exploredStates.size());
       stepBoundStats.put(heuristic.toString(), modelJson);
       boundedStats.put(String.valueOf(stepBound), stepBoundStats);
@@ -488,44 +489,50 @@ public final class CoreChecker {
   }
 
   private static JSONObject analyseModel(Prism prism, explicit.Model model, long constructionTime,
-      boolean analyseComponents) throws PrismException {
+      boolean analyseComponents, int threads) throws PrismException {
     JSONObject modelJson = new JSONObject();
     modelJson.put("states", model.getNumStates());
     modelJson.put("transitions", model.getNumTransitions());
     modelJson.put("time", Timer.format(constructionTime));
     if (analyseComponents) {
-      modelJson.put("components", analyseComponents(prism, model));
+      modelJson.put("components", analyseComponents(prism, model, threads));
     }
     return modelJson;
   }
 
-  private static JSONObject analyseComponents(Prism prism, explicit.Model model)
+  private static JSONObject analyseComponents(Prism prism, explicit.Model model, int threads)
       throws PrismException {
     JSONObject componentJson = new JSONObject();
 
     Timer componentTimer = new Timer();
-    List<BitSet> components;
-    if (model instanceof NondetModel) {
-      ECComputer ecComputer = ECComputer.createECComputer(prism, (NondetModel) model);
-      ecComputer.computeMECStates();
-      components = ecComputer.getMECStates();
+    int[] componentSizes;
+    // The parallel MEC decomposition needs our model representation, PRISM's MDPs are analysed
+    // sequentially
+    if (threads > 1 && (!(model instanceof NondetModel) || model instanceof Model)) {
+      componentSizes = analyseComponentsParallel(model, threads);
     } else {
-      SCCConsumerStore store = new SCCConsumerStore();
-      SCCComputer computer = SCCComputer.createSCCComputer(prism, model, store);
-      computer.computeSCCs(false);
-      components = store.getSCCs();
+      List<BitSet> components;
+      if (model instanceof NondetModel) {
+        ECComputer ecComputer = ECComputer.createECComputer(prism, (NondetModel) model);
+        ecComputer.computeMECStates();
+        components = ecComputer.getMECStates();
+      } else {
+        SCCConsumerStore store = new SCCConsumerStore();
+        SCCComputer computer = SCCComputer.createSCCComputer(prism, model, store);
+        computer.computeSCCs(false);
+        components = store.getSCCs();
+      }
+      componentSizes = components.stream().mapToInt(BitSet::cardinality).toArray();
     }
     componentJson.put("time", Timer.format(componentTimer.finish()));
-    if (components.isEmpty()) {
+    if (componentSizes.length == 0) {
       componentJson.put("count", 0);
       componentJson.put("maximum-size", 0);
       componentJson.put("minimum-size", 0);
       componentJson.put("average-size", 0);
       componentJson.put("sum-size", 0);
     } else {
-      IntSummaryStatistics statistics = components.stream()
-          .mapToInt(BitSet::cardinality)
-          .summaryStatistics();
+      IntSummaryStatistics statistics = Arrays.stream(componentSizes).summaryStatistics();
       componentJson.put("count", statistics.getCount());
       componentJson.put("maximum-size", statistics.getMax());
       componentJson.put("minimum-size", statistics.getMin());
@@ -535,6 +542,26 @@ public final class CoreChecker {
     return componentJson;
   }
 
+  // Same components as the PRISM analysis, i.e. MECs for non-deterministic models and all SCCs
+  // otherwise, but decomposed on a fork-join pool
+  private static int[] analyseComponentsParallel(explicit.Model model, int threads) {
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      IntSet states = NatBitSets.boundedFilledSet(model.getNumStates());
+      List<NatBitSet> components;
+      if (model instanceof NondetModel) {
+        components = new MecComponentAnalyser(pool).findComponents((Model) model, states);
+      } else {
+        CsrGraph graph = CsrGraph.of(states,
+            (state, consumer) -> model.getSuccessors(state).forEachRemaining(consumer));
+        components = ParallelSccDecomposition.computeSccs(graph, true, pool);
+      }
+      return components.stream().mapToInt(NatBitSet::size).toArray();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
   private static SuccessorHeuristic parseHeuristics(Option option, CommandLine commandLine) {
     if (!commandLine.hasOption(option.getLongOpt())) {
       return SuccessorHeuristic.WEIGHTED;
@@ -553,23 +580,28 @@ public final class CoreChecker {
   }
 
   private static OptionalInt parseOptionalIntOption(Option option, CommandLine commandLine) {
+    return parseOptionalIntOption(option, commandLine, "Step bound");
+  }
+
+  private static OptionalInt parseOptionalIntOption(Option option, CommandLine commandLine,
+      String description) {
     if (!commandLine.hasOption(option.getLongOpt())) {
       return OptionalInt.empty();
     }
     String optionValue = commandLine.getOptionValue(option.getLongOpt());
-    int stepBound;
+    int value;
     try {
-      stepBound = Integer.parseInt(optionValue);
+      value = Integer.parseInt(optionValue);
     } catch (NumberFormatException e) {
       System.out.printf("Invalid number %s", optionValue);
       System.exit(1);
       throw new AssertionError(e);
     }
-    if (stepBound <= 0) {
-      System.out.println("Step bound must be larger than 0");
+    if (value <= 0) {
+      System.out.println(description + " must be larger than 0");
       System.exit(1);
     }
-    return OptionalInt.of(stepBound);
+    return OptionalInt.of(value);
   }
 
   private static Supplier<BoundedCoreValues> parseBoundedValues(Option option,
@@ -596,7 +628,7 @@ public final class CoreChecker {
     ComponentAnalyser analyser;
     if (explorer.model() instanceof MarkovChain) {
       analyser = new SccComponentAnalyser();
-    } else if (explorer.model() instanceof MarkovDecisionProcess) {
+    } else if (explorer.model() instanceof MDP) {
       analyser = new MecComponentAnalyser();
     } else {
       throw new IllegalArgumentException(explorer.model().getClass().toString());
@@ -612,37 +644,86 @@ public final class CoreChecker {
 
   private static Explorer<State, Model> getExplorer(ModelGenerator generator,
       Double ctmcUniformRate, boolean removeSelfLoops) {
+    return getExplorer(getGenerator(generator, ctmcUniformRate), generator.getModelType(),
+        removeSelfLoops);
+  }
+
+  private static Explorer<State, Model> getExplorer(Generator<State> generator,
+      ModelType modelType, boolean removeSelfLoops) {
+    if (modelType == ModelType.MDP) {
+      return DefaultExplorer.of(new CompactMarkovDecisionProcess(), generator, removeSelfLoops);
+    }
+    if (modelType == ModelType.DTMC || modelType == ModelType.CTMC) {
+      return DefaultExplorer.of(new MarkovChain(), generator, removeSelfLoops);
+    }
+    throw new IllegalArgumentException();
+  }
+
+  private static Generator<State> getGenerator(ModelGenerator generator, Double ctmcUniformRate) {
     ModelType modelType = generator.getModelType();
     if (modelType == ModelType.MDP) {
-      MdpGenerator mdpGenerator = new MdpGenerator(generator);
-      return DefaultExplorer.of(new MarkovDecisionProcess(), mdpGenerator, removeSelfLoops);
+      return new MdpGenerator(generator);
     }
     if (modelType == ModelType.DTMC) {
-      DtmcGenerator dtmcGenerator = new DtmcGenerator(generator);
-      return DefaultExplorer.of(new MarkovChain(), dtmcGenerator, removeSelfLoops);
+      return new DtmcGenerator(generator);
     }
     if (modelType == ModelType.CTMC) {
-      Generator<State> stateGenerator = ctmcUniformRate == null
+      return ctmcUniformRate == null
           ? new CtmcEmbeddingGenerator(generator)
           : new CtmcUniformizingGenerator(generator, ctmcUniformRate);
-      return DefaultExplorer.of(new MarkovChain(), stateGenerator, removeSelfLoops);
-    } else {
-      throw new IllegalArgumentException();
+    }
+    throw new IllegalArgumentException();
+  }
+
+  // Each worker of the pool lazily creates its own PRISM generator for the modules file.
+  private static GeneratorPool<State> getGeneratorPool(ModulesFile modulesFile, Prism prism,
+      Double ctmcUniformRate, int threads) {
+    return new GeneratorPool<>(() -> {
+      try {
+        return getGenerator(new ModulesFileModelGenerator(modulesFile, prism), ctmcUniformRate);
+      } catch (PrismException e) {
+        throw new PrismWrappedException(e);
+      }
+    }, threads);
+  }
+
+  // Explores all reachable states breadth-first, expanding each layer as one batch.
+  private static void exploreCompletely(Explorer<State, Model> explorer) throws PrismException {
+    IntSet discovered = new IntOpenHashSet(explorer.initialStates());
+    IntList frontier = new IntArrayList(explorer.initialStates());
+
+    while (!frontier.isEmpty()) {
+      IntList nextFrontier = new IntArrayList();
+      IntIterator iterator = frontier.iterator();
+      while (iterator.hasNext()) {
+        int state = iterator.nextInt();
+        assert explorer.isExploredState(state);
+        for (Distribution choice : explorer.getChoices(state)) {
+          for (int successor : choice.support()) {
+            if (discovered.add(successor)) {
+              nextFrontier.add(successor);
+            }
+          }
+        }
+      }
+      explorer.exploreStates(nextFrontier);
+      frontier = nextFrontier;
     }
   }
 
   private static AnnotatedModel<?> buildBoundedCore(int stepBound, Explorer<State, Model> explorer,
       BoundedCoreValues values) throws PrismException {
-    BoundedStepFunction stepFunction = (state, remaining, choices, bounds) -> {
+    BoundedStepFunction stepFunction = (state, remaining, choices, lower, upper, result) -> {
       assert remaining > 0;
       double maximum = 0.0d;
       for (Distribution choice : choices) {
-        double value = choice.sumWeighted(s -> bounds[s].upperBound());
+        double value = choice.sumWeighted(upper);
         if (value > maximum) {
           maximum = value;
         }
       }
-      return Bounds.reach(0.0d, maximum);
+      result[0] = 0.0d;
+      result[1] = maximum;
     };
     logger.log(Level.INFO, "Building {0}-bounded core, explorer {1}, values {2}",
         new Object[] {stepBound, explorer, values});
@@ -666,9 +747,9 @@ public final class CoreChecker {
           ? dtmcChecker.computeReachProbs(chain, target)
           : dtmcChecker.computeBoundedReachProbs(chain, target, stepBound);
     }
-    if (model instanceof MarkovDecisionProcess) {
+    if (model instanceof MDP) {
       MDPModelChecker mdpChecker = (MDPModelChecker) mc;
-      MarkovDecisionProcess process = (MarkovDecisionProcess) model;
+      MDP process = (MDP) model;
       return stepBound < 0
           ? mdpChecker.computeReachProbs(process, target, false)
           : mdpChecker.computeBoundedReachProbs(process, target, stepBound, false);
@@ -66,6 +66,14 @@ abstract class UnboundedCoreValues implements UnboundedValues {
     update(state, maximalValue);
   }
 
+  @Override
+  public void tighten(int state, double lowerBound, double upperBound) {
+    // Only upper bounds are stored
+    if (upperBound < upperBound(state)) {
+      update(state, upperBound);
+    }
+  }
+
   @Override
   public boolean isSmallestFixPoint() {
     return false;
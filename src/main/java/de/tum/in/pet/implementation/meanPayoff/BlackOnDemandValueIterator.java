@@ -12,6 +12,7 @@ import de.tum.in.probmodels.generator.RewardGenerator;
 import de.tum.in.probmodels.graph.Mec;
 import de.tum.in.probmodels.model.Distribution;
 import de.tum.in.probmodels.model.Model;
+import de.tum.in.probmodels.util.RandomProvider;
 import it.unimi.dsi.fastutil.doubles.Double2LongFunction;
 import it.unimi.dsi.fastutil.ints.*;
 import prism.Pair;
@@ -40,6 +41,10 @@ public class BlackOnDemandValueIterator<S, M extends Model> extends OnDemandValu
 
   protected Int2IntMap stayActionCounts = new Int2IntOpenHashMap(); // Map that holds the number of times each stay action for an mec has been sampled, accessible using mecIndices.
 
+  // Map that holds the most recent VI values of each mec. It is keyed by the states of the mec instead of its index, as
+  // the indices change in updateMecInfo.
+  protected final Map<NatBitSet, Int2ObjectMap<Bounds>> mecBoundsCache = new HashMap<>();
+
   protected boolean seenNewTransitionSignificantly = false; // If a new transition has been sampled a significant number of times.
 
   // Enable this boolean only when the updateMethod is greyBox.
@@ -47,6 +52,7 @@ public class BlackOnDemandValueIterator<S, M extends Model> extends OnDemandValu
   private final SimulateMec simulateMec;
   private final int maxSuccessorsInModel;
   private final DeltaTCalculationMethod deltaTCalculationMethod;
+  private UpdatePropagation updatePropagation = UpdatePropagation.SWEEP;
 
   protected static final double initialNSamples = 1e4;
   protected static final double multiplicativeFactor = 5;
@@ -71,6 +77,14 @@ public class BlackOnDemandValueIterator<S, M extends Model> extends OnDemandValu
     return values.bounds(state);
   }
 
+  /**
+   * Sets how the bounds are updated after each round of sampling. The worklist propagation requires a model which
+   * supports {@link Model#getPredecessors(int)}.
+   */
+  public void setUpdatePropagation(UpdatePropagation updatePropagation) {
+    this.updatePropagation = updatePropagation;
+  }
+
   @Override
   protected boolean sample(int initialState, int run) throws PrismException {
 
@@ -189,14 +203,19 @@ public class BlackOnDemandValueIterator<S, M extends Model> extends OnDemandValu
             : 0);
     values.setConfidenceWidthFunction(confidenceWidthFunction);
 
-    // the update function is ran until there has been some progress, i.e., the upper bounds of some state have been changed.
-    // if there has been change, this change needs to be propagated through the rest of the states.
-    boolean ifProgress = true;
     int nMaxUpdates = explorer.exploredStateCount();
-    int nUpdates = 0;
-    while(ifProgress && nUpdates < nMaxUpdates) {
-      ifProgress = update();
-      nUpdates++;
+    if (updatePropagation == UpdatePropagation.WORKLIST) {
+      BoundPropagation.propagate(explorer.exploredStates(), this::choices, explorer.model()::getPredecessors, values,
+              mecs, nMaxUpdates);
+    } else {
+      // the update function is ran until there has been some progress, i.e., the upper bounds of some state have been changed.
+      // if there has been change, this change needs to be propagated through the rest of the states.
+      boolean ifProgress = true;
+      int nUpdates = 0;
+      while(ifProgress && nUpdates < nMaxUpdates) {
+        ifProgress = update();
+        nUpdates++;
+      }
     }
 
     return true;
@@ -219,7 +238,7 @@ public class BlackOnDemandValueIterator<S, M extends Model> extends OnDemandValu
 
   private Pair<Integer, Integer> getSampledBestLeavingAction(int currentState) {
     BlackUnboundedReachValues values = (BlackUnboundedReachValues) this.values;
-    Random randomIntegerSampler = new Random();
+    SplittableRandom randomIntegerSampler = RandomProvider.current();
 
     int mecIndex = stateToMecMap.get(currentState);
     NatBitSet mecStates = this.mecs.get(mecIndex);
@@ -294,11 +313,11 @@ public class BlackOnDemandValueIterator<S, M extends Model> extends OnDemandValu
   }
 
   /**
-   * Implements lines 11-15 in CAV'17 paper. Runs VI on mec.
+   * Implements lines 11-15 in CAV'17 paper. Simulates mec and sets up VI on it.
    * @param mecIndex: Index of mec on which VI has to be run.
    */
   @Override
-  protected void updateMec(int mecIndex){
+  protected MecUpdate prepareMecUpdate(int mecIndex){
 
     BlackExplorer<S, M> explorer = (BlackExplorer<S, M>) this.explorer;
 
@@ -308,7 +327,7 @@ public class BlackOnDemandValueIterator<S, M extends Model> extends OnDemandValu
     double currPrecision = mecBounds.difference()*this.rMax;
 
     if(currPrecision<this.precision/2){
-      return;
+      return null;
     }
 
     double targetPrecision = currPrecision/2;
@@ -317,7 +336,7 @@ public class BlackOnDemandValueIterator<S, M extends Model> extends OnDemandValu
     Mec mec = getMec(mecIndex);
 
     if (mec.states.size()==0){
-      return;
+      return null;
     }
 
     // We start with 1, because if 0, the requiredSamples become NaN
@@ -332,28 +351,49 @@ public class BlackOnDemandValueIterator<S, M extends Model> extends OnDemandValu
 
     assert !isZero(targetPrecision);
 
-    // lambda function that returns a state object when given the state index. required for accessing reward generator function.
-    Int2ObjectFunction<S> stateIndexMap = explorer::getState;
+    // VI continues from the values of the previous VIs on this mec or the mecs it overlaps with, and updates them in
+    // place.
+    Int2ObjectMap<Bounds> valueCache = warmStartValues(mec);
+    mecBoundsCache.put(NatBitSets.copyOf(mecs.get(mecIndex)), valueCache);
 
     RestrictedMecBoundedValueIterator<S> valueIterator = new RestrictedMecBoundedValueIterator<>(mec, targetPrecision/2,
-            rewardGenerator, stateIndexMap, rMax, timeout);
+            rewardCache, valueCache, rMax, timeout);
     valueIterator.setConfidenceWidthFunction(x -> (y -> Math.sqrt(-Math.log(transDelta)/(2*explorer.getActionCounts(x, y)))));
     valueIterator.setDistributionFunction(x -> y -> this.explorer.model().getChoice(x, y));
-    valueIterator.setLabelFunction(x -> y -> this.explorer.model().getActions(x).get(y).label());
-
-    valueIterator.run();
-
-    Bounds newBounds = valueIterator.getBounds();
-    Bounds scaledBounds = Bounds.of(newBounds.lowerBound()/this.rMax, newBounds.upperBound()/this.rMax);
-
-    // In the case when we run VI after some new states have been added, the lower bounds may be worse than the
-    // previously computed bounds. However, we know that the MEC's reward must be greater than the previously computed
-    // lower bound value. Thus, we can use the previously computer lower bound value for slightly faster convergence.
-    scaledBounds = scaledBounds.withLower(Math.max(scaledBounds.lowerBound(), mecBounds.lowerBound()));
-
 
-    updateStayAction(mecIndex, scaledBounds);
+    cacheRewards(mec);
+    return new MecUpdate(mecIndex, mecBounds, () -> {
+      valueIterator.run();
+      return valueIterator.getBounds();
+    });
+  }
 
+  /**
+   * Collects the cached VI values of the states of mec from all cached mecs overlapping with it. Accumulated values of
+   * different mecs differ by the number of iterations run on them, hence each is shifted to start at zero; only
+   * differences between states matter for the convergence of VI.
+   * @param mec: mec on which VI is to be run.
+   * @return values for (some of) the states of mec.
+   */
+  private Int2ObjectMap<Bounds> warmStartValues(Mec mec) {
+    Int2ObjectMap<Bounds> warmStart = new Int2ObjectOpenHashMap<>();
+    for (Int2ObjectMap<Bounds> cachedValues : mecBoundsCache.values()) {
+      if (cachedValues.keySet().stream().noneMatch(mec.states::contains)) {
+        continue;
+      }
+      // Shifting lower and upper values by the same amount keeps them ordered.
+      double minLower = Double.MAX_VALUE;
+      for (Bounds bounds : cachedValues.values()) {
+        minLower = Math.min(minLower, bounds.lowerBound());
+      }
+      for (Int2ObjectMap.Entry<Bounds> entry : cachedValues.int2ObjectEntrySet()) {
+        if (mec.states.contains(entry.getIntKey())) {
+          Bounds bounds = entry.getValue();
+          warmStart.put(entry.getIntKey(), Bounds.of(bounds.lowerBound() - minLower, bounds.upperBound() - minLower));
+        }
+      }
+    }
+    return warmStart;
   }
 
   private double computeNSamples(Mec mec) {
@@ -417,7 +457,11 @@ public class BlackOnDemandValueIterator<S, M extends Model> extends OnDemandValu
     // activate the action count filter. Now explorer.model() only contains those actions that have been sampled
     // requiredSamples number of times. (Refer to Algorithm 3 in CAV'19). Now we can get a delta-sure EC.
     explorer.activateActionCountFilter();
-    List<NatBitSet> newComponents = mecAnalyser.findComponents(explorer.model(), states);  // find all MECs in the partial model.
+    // find all MECs in the partial model, repairing only the components around states whose filtered actions changed.
+    // New states are tracked by the explorer as well.
+    mecDecomposition.update(explorer.model(), states, explorer.pollModifiedStates());
+    newStatesSinceCollapse.clear();
+    List<NatBitSet> newComponents = new ArrayList<>(mecDecomposition.components());
 
     // if no new components have been found, we clear all mec info that has been computed until now.
     if(newComponents.isEmpty()){
@@ -425,6 +469,7 @@ public class BlackOnDemandValueIterator<S, M extends Model> extends OnDemandValu
       this.stateToMecMap.clear();
       this.stayActionMap.clear();
       this.mecValueCache.clear();
+      this.mecBoundsCache.clear();
       // deactivate action count filter so that the original actions are restored in the model.
       explorer.deactivateActionCountFilter();
       return;
@@ -440,14 +485,13 @@ public class BlackOnDemandValueIterator<S, M extends Model> extends OnDemandValu
 
     // This deflates the values of the states of the new mecs. Further, the stay action is added here.
 
-    for(int i: changedMecs){
-
-      // We need to run VI on the MEC again to account for the following case. It can be that the bounds on the MEC are
-      // already very precise. Thus, the probability of reaching the uncertain state would be very small and we may
-      // never be able to run VI on the newly added states again. Thus, we need to run VI straight after adding new
-      // states.
-      updateMec(i);
-    }
+    // We need to run VI on the MECs again to account for the following case. It can be that the bounds on the MEC are
+    // already very precise. Thus, the probability of reaching the uncertain state would be very small and we may
+    // never be able to run VI on the newly added states again. Thus, we need to run VI straight after adding new
+    // states. The MECs are independent, so their VIs may run in parallel.
+    updateMecs(changedMecs);
+    // Values of mecs which do not exist anymore have been carried over to the new ones by now.
+    mecBoundsCache.keySet().retainAll(new HashSet<>(mecs));
 
     explorer.deactivateActionCountFilter();
 
@@ -0,0 +1,131 @@
+package de.tum.in.pet.implementation.meanPayoff;
+
+import de.tum.in.naturals.set.NatBitSet;
+import de.tum.in.pet.implementation.reachability.BlackUnboundedReachValues;
+import de.tum.in.pet.values.Bounds;
+import de.tum.in.probmodels.graph.CsrGraph;
+import de.tum.in.probmodels.graph.SccDecomposition;
+import de.tum.in.probmodels.model.Distribution;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectFunction;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+import it.unimi.dsi.fastutil.ints.IntCollection;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Worklist variant of the bound updates of the black box iterators (see {@link UpdatePropagation#WORKLIST}). Instead of
+ * sweeping over all explored states until no bound changes any more, the SCCs of the explored model are processed in
+ * reverse topological order, so each SCC only starts once the bounds of everything it can reach are final. Within an
+ * SCC, a state is updated again only if the bounds of one of its successors moved.
+ */
+final class BoundPropagation {
+  // Same as the threshold of BlackUnboundedReachValues.checkProgress
+  private static final double PROGRESS_THRESHOLD = 1e-6;
+
+  private BoundPropagation() {
+    // Empty
+  }
+
+  /**
+   * Updates the bounds of all states until they are stable.
+   * @param states: explored states whose bounds are to be updated.
+   * @param choices: function that returns the choices for a given state, including stay actions.
+   * @param predecessors: function that returns (at least) all states of states with a choice leading to a given state.
+   * @param values: values to be updated.
+   * @param mecs: mecs of the explored model, which are deflated as in the sweeping update.
+   * @param maxUpdatesPerState: the number of updates per state after which the propagation stops, even if bounds still
+   *                          change. Corresponds to the number of sweeps of the sweeping update.
+   */
+  static void propagate(IntCollection states, Int2ObjectFunction<List<Distribution>> choices,
+                        IntFunction<? extends IntCollection> predecessors, BlackUnboundedReachValues values,
+                        List<NatBitSet> mecs, int maxUpdatesPerState) {
+    CsrGraph graph = CsrGraph.of(states, (state, consumer) -> {
+      for (Distribution distribution : choices.get(state)) {
+        distribution.forEach((successor, probability) -> consumer.accept(successor));
+      }
+    });
+    // Tarjan's algorithm finds the SCCs in reverse topological order
+    List<NatBitSet> sccs = SccDecomposition.computeSccs(graph, true);
+
+    Int2IntMap stateToScc = new Int2IntOpenHashMap();
+    stateToScc.defaultReturnValue(-1);
+    for (int index = 0; index < sccs.size(); index++) {
+      int sccIndex = index;
+      sccs.get(index).forEach((int state) -> stateToScc.put(state, sccIndex));
+    }
+    // A mec is strongly connected, hence contained in a single SCC
+    List<List<NatBitSet>> sccMecs = new ArrayList<>(sccs.size());
+    for (int index = 0; index < sccs.size(); index++) {
+      sccMecs.add(new ArrayList<>());
+    }
+    for (NatBitSet mec : mecs) {
+      int sccIndex = mec.isEmpty() ? -1 : stateToScc.get(mec.firstInt());
+      if (sccIndex != -1) {
+        sccMecs.get(sccIndex).add(mec);
+      }
+    }
+
+    for (int index = 0; index < sccs.size(); index++) {
+      propagateInScc(sccs.get(index), sccMecs.get(index), choices, predecessors, values, maxUpdatesPerState);
+    }
+  }
+
+  private static void propagateInScc(NatBitSet scc, List<NatBitSet> sccMecs,
+                                     Int2ObjectFunction<List<Distribution>> choices,
+                                     IntFunction<? extends IntCollection> predecessors,
+                                     BlackUnboundedReachValues values, int maxUpdatesPerState) {
+    IntArrayFIFOQueue queue = new IntArrayFIFOQueue(scc.size());
+    IntSet queued = new IntOpenHashSet(scc);
+    scc.forEach((int state) -> queue.enqueue(state));
+
+    long remainingUpdates = (long) scc.size() * maxUpdatesPerState;
+    while (!queue.isEmpty() && remainingUpdates > 0) {
+      while (!queue.isEmpty() && remainingUpdates > 0) {
+        int state = queue.dequeueInt();
+        queued.remove(state);
+        remainingUpdates -= 1;
+
+        Bounds oldBounds = values.bounds(state);
+        values.update(state, choices.get(state));
+        if (hasMoved(oldBounds, values.bounds(state))) {
+          enqueuePredecessors(state, scc, predecessors, queue, queued);
+        }
+      }
+
+      // Deflation only lowers upper bounds, the predecessors of lowered states have to be updated again
+      for (NatBitSet mec : sccMecs) {
+        Int2ObjectMap<Bounds> oldBounds = new Int2ObjectOpenHashMap<>(mec.size());
+        mec.forEach((int state) -> oldBounds.put(state, values.bounds(state)));
+        values.deflate(mec, choices);
+        mec.forEach((int state) -> {
+          if (hasMoved(oldBounds.get(state), values.bounds(state))) {
+            enqueuePredecessors(state, scc, predecessors, queue, queued);
+          }
+        });
+      }
+    }
+  }
+
+  private static void enqueuePredecessors(int state, NatBitSet scc, IntFunction<? extends IntCollection> predecessors,
+                                          IntArrayFIFOQueue queue, IntSet queued) {
+    // Predecessors outside of the SCC are processed later anyway
+    predecessors.apply(state).forEach((int predecessor) -> {
+      if (scc.contains(predecessor) && queued.add(predecessor)) {
+        queue.enqueue(predecessor);
+      }
+    });
+  }
+
+  private static boolean hasMoved(Bounds oldBounds, Bounds newBounds) {
+    return Math.abs(oldBounds.lowerBound() - newBounds.lowerBound()) >= PROGRESS_THRESHOLD
+        || Math.abs(oldBounds.upperBound() - newBounds.upperBound()) >= PROGRESS_THRESHOLD;
+  }
+}
@@ -14,6 +14,7 @@ import de.tum.in.probmodels.graph.MecUniformizer;
 import de.tum.in.probmodels.graph.UniformizedMEC;
 import de.tum.in.probmodels.model.Distribution;
 import de.tum.in.probmodels.model.Model;
+import de.tum.in.probmodels.util.RandomProvider;
 import it.unimi.dsi.fastutil.doubles.Double2LongFunction;
 import it.unimi.dsi.fastutil.ints.*;
 import prism.Pair;
@@ -21,7 +22,7 @@ import prism.PrismException;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.logging.Level;
 
 import static de.tum.in.probmodels.util.Util.isZero;
@@ -46,11 +47,10 @@ public class CTMDPBlackOnDemandValueIterator<S, M extends Model> extends OnDeman
 
     private final MecUniformizer mecUniformizer;
 
-    private final Int2ObjectFunction<Int2ObjectFunction<Object>> labelFunction;
-
     private final SimulateMec simulateMec;
     private final int maxSuccessorsInModel;
     private final DeltaTCalculationMethod deltaTCalculationMethod;
+    private UpdatePropagation updatePropagation = UpdatePropagation.SWEEP;
 
     protected static final double initialNSamples = 1e4;
     protected static final double multiplicativeFactor = 5;
@@ -70,7 +70,6 @@ public class CTMDPBlackOnDemandValueIterator<S, M extends Model> extends OnDeman
         this.maxSuccessorsInModel = maxSuccessorsInModel;
         this.deltaTCalculationMethod = deltaTCalculationMethod;
         Int2ObjectFunction<Int2ObjectFunction<Distribution>> distributionFunction = x -> y -> this.explorer.model().getChoice(x, y);
-        this.labelFunction = x -> y -> this.explorer.model().getActions(x).get(y).label();
 
         mecUniformizer.setDistributionFunction(distributionFunction);
     }
@@ -80,6 +79,14 @@ public class CTMDPBlackOnDemandValueIterator<S, M extends Model> extends OnDeman
         return values.bounds(state);
     }
 
+    /**
+     * Sets how the bounds are updated after each round of sampling. The worklist propagation requires a model which
+     * supports {@link Model#getPredecessors(int)}.
+     */
+    public void setUpdatePropagation(UpdatePropagation updatePropagation) {
+        this.updatePropagation = updatePropagation;
+    }
+
     @Override
     protected boolean sample(int initialState, int run) throws PrismException {
 
@@ -194,14 +201,19 @@ public class CTMDPBlackOnDemandValueIterator<S, M extends Model> extends OnDeman
                 : 0);
         values.setConfidenceWidthFunction(confidenceWidthFunction);
 
-        // the update function is ran until there has been some progress, i.e., the upper bounds of some state have been changed.
-        // if there has been change, this change needs to be propagated through the rest of the states.
-        boolean ifProgress = true;
         int nMaxUpdates = explorer.exploredStateCount();
-        int nUpdates = 0;
-        while (ifProgress && nUpdates < nMaxUpdates) {
-            ifProgress = update();
-            nUpdates++;
+        if (updatePropagation == UpdatePropagation.WORKLIST) {
+            BoundPropagation.propagate(explorer.exploredStates(), this::choices, explorer.model()::getPredecessors,
+                    values, mecs, nMaxUpdates);
+        } else {
+            // the update function is ran until there has been some progress, i.e., the upper bounds of some state have been changed.
+            // if there has been change, this change needs to be propagated through the rest of the states.
+            boolean ifProgress = true;
+            int nUpdates = 0;
+            while (ifProgress && nUpdates < nMaxUpdates) {
+                ifProgress = update();
+                nUpdates++;
+            }
         }
 
         return true;
@@ -224,7 +236,7 @@ public class CTMDPBlackOnDemandValueIterator<S, M extends Model> extends OnDeman
 
     private Pair<Integer, Integer> getSampledBestLeavingAction(int currentState) {
         BlackUnboundedReachValues values = (BlackUnboundedReachValues) this.values;
-        Random randomIntegerSampler = new Random();
+        SplittableRandom randomIntegerSampler = RandomProvider.current();
 
         int mecIndex = stateToMecMap.get(currentState);
         NatBitSet mecStates = this.mecs.get(mecIndex);
@@ -357,13 +369,9 @@ public class CTMDPBlackOnDemandValueIterator<S, M extends Model> extends OnDeman
 
         mecUniformizer.setRateFunction(rateFunction);
         UniformizedMEC uniformizedMEC = mecUniformizer.uniformize(mec, computeMaxRate(mec));
-        // lambda function that returns a state object when given the state index. required for accessing reward generator function.
-        Int2ObjectFunction<S> stateIndexMap = explorer::getState;
-
         RestrictedMecValueIterator<S, M> valueIterator = new RestrictedMecValueIterator<S, M>(mec, targetPrecision / 2,
-                rewardGenerator, stateIndexMap, rMax, timeout);
+                rewardCache, rMax, timeout);
         valueIterator.setDistributionFunction(x -> y -> uniformizedMEC.getUniformizedDistribution(x, y));
-        valueIterator.setLabelFunction(labelFunction);
 
         valueIterator.run();
 
@@ -391,8 +399,7 @@ public class CTMDPBlackOnDemandValueIterator<S, M extends Model> extends OnDeman
         return x -> y -> {
 
             double rate = explorer.computeRate(x, y);
-            double reward = rewardGenerator.stateReward(explorer.getState(x)) +
-                    rewardGenerator.transitionReward(explorer.getState(x), explorer.model().getActions(x).get(y).label());
+            double reward = rewardCache.reward(x, y);
             double epsilonHat = computeEpsilonHat(x, y);
 
             if (reward >= (mecValue * rMax)) {
@@ -411,8 +418,7 @@ public class CTMDPBlackOnDemandValueIterator<S, M extends Model> extends OnDeman
         return x -> y -> {
 
             double rate = explorer.computeRate(x, y);
-            double reward = rewardGenerator.stateReward(explorer.getState(x)) +
-                    rewardGenerator.transitionReward(explorer.getState(x), explorer.model().getActions(x).get(y).label());
+            double reward = rewardCache.reward(x, y);
             double epsilonHat = computeEpsilonHat(x, y);
 
             if (reward >= (mecValue * rMax)) {
@@ -0,0 +1,121 @@
+package de.tum.in.pet.implementation.meanPayoff;
+
+import de.tum.in.probmodels.generator.RewardCache;
+import de.tum.in.probmodels.graph.Mec;
+import de.tum.in.probmodels.model.Distribution;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.*;
+
+/**
+ * A MEC translated to dense local state indices, so that value iteration can work on plain arrays instead of maps.
+ * The allowed actions of local state i are stored at positions stateOffsets[i] up to (excluding) stateOffsets[i+1],
+ * the transitions of action a at positions actionOffsets[a] up to (excluding) actionOffsets[a+1] of successors and
+ * probabilities.
+ */
+final class CompiledMec {
+  final int[] states; // local index to state of the original model
+  final int[] stateOffsets;
+  final double[] rewards; // state plus transition reward of each action
+  final int[] actionOffsets;
+  final int[] successors; // local indices
+  final double[] probabilities;
+
+  private CompiledMec(int[] states, int[] stateOffsets, double[] rewards, int[] actionOffsets, int[] successors,
+                      double[] probabilities) {
+    this.states = states;
+    this.stateOffsets = stateOffsets;
+    this.rewards = rewards;
+    this.actionOffsets = actionOffsets;
+    this.successors = successors;
+    this.probabilities = probabilities;
+  }
+
+  /**
+   * @param mec: MEC to compile, only its allowed actions are considered.
+   * @param rewards: rewards of the original model.
+   * @param distributionFunction: returns the distribution of state x and action index y.
+   */
+  static CompiledMec compile(Mec mec, RewardCache<?> rewards,
+                             Int2ObjectFunction<Int2ObjectFunction<Distribution>> distributionFunction) {
+    int numStates = mec.states.size();
+    int[] states = mec.states.toIntArray();
+    Int2IntMap localIndex = new Int2IntOpenHashMap(numStates);
+    localIndex.defaultReturnValue(-1);
+    for (int i = 0; i < numStates; i++) {
+      localIndex.put(states[i], i);
+    }
+
+    int[] stateOffsets = new int[numStates + 1];
+    DoubleArrayList actionRewards = new DoubleArrayList(numStates);
+    IntArrayList actionOffsets = new IntArrayList(numStates + 1);
+    IntArrayList successors = new IntArrayList(numStates);
+    DoubleArrayList probabilities = new DoubleArrayList(numStates);
+    for (int i = 0; i < numStates; i++) {
+      int state = states[i];
+      stateOffsets[i] = actionRewards.size();
+      IntSet allowedActions = mec.actions.get(state);  // allowedActions numbered as in original model
+      assert allowedActions != null;
+      for (int action : allowedActions) {
+        actionRewards.add(rewards.reward(state, action));
+        actionOffsets.add(successors.size());
+        for (Int2DoubleMap.Entry entry : distributionFunction.apply(state).apply(action)) {
+          int successor = localIndex.get(entry.getIntKey());
+          assert successor != -1 : "Successor " + entry.getIntKey() + " outside of MEC";
+          if (successor != -1) {
+            successors.add(successor);
+            probabilities.add(entry.getDoubleValue());
+          }
+        }
+      }
+    }
+    stateOffsets[numStates] = actionRewards.size();
+    actionOffsets.add(successors.size());
+
+    return new CompiledMec(states, stateOffsets, actionRewards.toDoubleArray(), actionOffsets.toIntArray(),
+        successors.toIntArray(), probabilities.toDoubleArray());
+  }
+
+  int size() {
+    return states.length;
+  }
+
+  /**
+   * Initialises the values of the states which are not known yet, e.g. states which joined the MEC since its previous
+   * VI, with the probability-weighted average of the known values of their successors. States without any known
+   * successor get the average of all known values. States are processed in order, so a state initialised this way
+   * counts as known for the following ones.
+   */
+  void fillUnknownValues(double[] values, boolean[] known) {
+    double knownSum = 0.0;
+    int knownCount = 0;
+    for (int i = 0; i < states.length; i++) {
+      if (known[i]) {
+        knownSum += values[i];
+        knownCount++;
+      }
+    }
+    if (knownCount == 0 || knownCount == states.length) {
+      return;
+    }
+    double knownAverage = knownSum / knownCount;
+
+    for (int i = 0; i < states.length; i++) {
+      if (known[i]) {
+        continue;
+      }
+      double sum = 0.0;
+      double weight = 0.0;
+      for (int action = stateOffsets[i]; action < stateOffsets[i + 1]; action++) {
+        for (int transition = actionOffsets[action]; transition < actionOffsets[action + 1]; transition++) {
+          int successor = successors[transition];
+          if (known[successor]) {
+            sum += probabilities[transition] * values[successor];
+            weight += probabilities[transition];
+          }
+        }
+      }
+      values[i] = weight > 0.0 ? sum / weight : knownAverage;
+      known[i] = true;
+    }
+  }
+}
@@ -15,9 +15,10 @@ import de.tum.in.probmodels.explorer.CTMDPBlackExplorer;
 import de.tum.in.probmodels.explorer.Explorers;
 import de.tum.in.probmodels.explorer.InformationLevel;
 import de.tum.in.probmodels.generator.*;
-import de.tum.in.probmodels.model.MarkovDecisionProcess;
+import de.tum.in.probmodels.model.CompactMarkovDecisionProcess;
 import de.tum.in.probmodels.model.Model;
 import de.tum.in.probmodels.util.PrismHelper;
+import de.tum.in.probmodels.util.RandomProvider;
 import it.unimi.dsi.fastutil.doubles.Double2LongFunction;
 import org.apache.commons.cli.CommandLine;
 import parser.State;
@@ -29,6 +30,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.IntPredicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -80,11 +83,13 @@ public final class MeanPayoffChecker {
 
       UnboundedValues values = new BlackUnboundedReachValues(ValueUpdate.MAX_VALUE, inputValues.updateMethod, target, inputValues.precision / inputValues.maxReward, inputValues.successorHeuristic);
 
-      valueIterator = new CTMDPBlackOnDemandValueIterator<>(explorer, values, rewardGenerator,
+      var blackValueIterator = new CTMDPBlackOnDemandValueIterator<>(explorer, values, rewardGenerator,
               inputValues.revisitThreshold, inputValues.maxReward, inputValues.pMin, inputValues.errorTolerance,
               nSampleFunction, inputValues.precision / inputValues.maxReward,
               System.currentTimeMillis()+inputValues.timeout, inputValues.getErrorProbability, inputValues.simulateMec,
               inputValues.deltaTCalculationMethod, inputValues.maxSuccessorsInModel);
+      blackValueIterator.setUpdatePropagation(inputValues.updatePropagation);
+      valueIterator = blackValueIterator;
     }
     else{
       throw new UnsupportedOperationException("Greybox not implemented for CTMDP");
@@ -128,10 +133,12 @@ public final class MeanPayoffChecker {
       UnboundedValues values = new BlackUnboundedReachValues(ValueUpdate.MAX_VALUE, ip.updateMethod, target,
               ip.precision / ip.maxReward, ip.successorHeuristic);
 
-      valueIterator = new BlackOnDemandValueIterator<>(explorer, values, rewardGenerator,
+      var blackValueIterator = new BlackOnDemandValueIterator<>(explorer, values, rewardGenerator,
               ip.revisitThreshold, ip.maxReward, ip.pMin, ip.errorTolerance, nSampleFunction,
               ip.precision / ip.maxReward, System.currentTimeMillis() + ip.timeout, ip.getErrorProbability,
               ip.simulateMec, ip.deltaTCalculationMethod, ip.maxSuccessorsInModel);
+      blackValueIterator.setUpdatePropagation(ip.updatePropagation);
+      valueIterator = blackValueIterator;
     }
     else{
       Double2LongFunction nSampleFunction = s -> ip.iterSamples;
@@ -139,13 +146,23 @@ public final class MeanPayoffChecker {
       UnboundedValues values = new GreyUnboundedReachValues(ValueUpdate.MAX_VALUE, ip.updateMethod, target,
               ip.precision / ip.maxReward, ip.successorHeuristic);
 
-      valueIterator = new GreyOnDemandValueIterator<>(explorer, values, rewardGenerator,
+      var greyValueIterator = new GreyOnDemandValueIterator<>(explorer, values, rewardGenerator,
               ip.revisitThreshold, ip.maxReward, ip.pMin, ip.errorTolerance, nSampleFunction,
               ip.precision / ip.maxReward, System.currentTimeMillis()+ip.timeout,
               ip.simulateMec, ip.deltaTCalculationMethod, ip.maxSuccessorsInModel);
+      greyValueIterator.setUpdatePropagation(ip.updatePropagation);
+      valueIterator = greyValueIterator;
     }
 
-    valueIterator.run();
+    ExecutorService mecExecutor = ip.mecThreads > 1 ? Executors.newFixedThreadPool(ip.mecThreads) : null;
+    valueIterator.setMecExecutor(mecExecutor);
+    try {
+      valueIterator.run();
+    } finally {
+      if (mecExecutor != null) {
+        mecExecutor.shutdownNow();
+      }
+    }
 
     int initState = explorer.initialStates().iterator().nextInt();
     Bounds bounds = valueIterator.bounds(initState);
@@ -162,7 +179,7 @@ public final class MeanPayoffChecker {
   private static double solveCtmdp(ModelGenerator prismGenerator,int rewardIndex, InputValues inputValues)
           throws PrismException {
 
-    MarkovDecisionProcess partialModel = new MarkovDecisionProcess();
+    CompactMarkovDecisionProcess partialModel = new CompactMarkovDecisionProcess();
     Generator<State> generator = new CtmdpGenerator(prismGenerator);
 
     RewardGenerator<State> rewardGenerator = new PrismRewardGenerator(rewardIndex, prismGenerator);
@@ -174,7 +191,7 @@ public final class MeanPayoffChecker {
   private static double solveMdp(ModelGenerator prismGenerator, int rewardIndex, InputValues inputValues)
           throws PrismException {
 
-    MarkovDecisionProcess partialModel = new MarkovDecisionProcess();
+    CompactMarkovDecisionProcess partialModel = new CompactMarkovDecisionProcess();
     Generator<State> generator = new MdpGenerator(prismGenerator);
 
     RewardGenerator<State> rewardGenerator = new PrismRewardGenerator(rewardIndex, prismGenerator);
@@ -185,6 +202,9 @@ public final class MeanPayoffChecker {
 
   public static void main(String[] args) throws PrismException, IOException {
     InputValues ip = InputParser.parseInput(args);
+    if (ip.seed != null) {
+      RandomProvider.setSeed(ip.seed);
+    }
     NatBitSets.setFactory(new RoaringNatBitSetFactory());
     CommandLine commandLine = CliHelper.parse(InputOptions.getAllInputOptions(), args);
 
@@ -7,7 +7,9 @@ import de.tum.in.pet.sampler.Iterator;
 import de.tum.in.pet.sampler.UnboundedValues;
 import de.tum.in.pet.values.Bounds;
 import de.tum.in.probmodels.explorer.Explorer;
+import de.tum.in.probmodels.generator.RewardCache;
 import de.tum.in.probmodels.generator.RewardGenerator;
+import de.tum.in.probmodels.graph.IncrementalMecDecomposition;
 import de.tum.in.probmodels.graph.Mec;
 import de.tum.in.probmodels.graph.MecComponentAnalyser;
 import de.tum.in.probmodels.model.*;
@@ -17,9 +19,15 @@ import prism.PrismException;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 import static de.tum.in.probmodels.util.Util.isZero;
 
@@ -31,6 +39,8 @@ public class OnDemandValueIterator<S, M extends Model> implements Iterator<S, M>
   protected final UnboundedValues values;
   private final BoundedMecQuotient<M> boundedMecQuotient;
   protected final RewardGenerator<S> rewardGenerator;
+  // Rewards of the explored states, shared by all value iterations so that PRISM is queried only once per state
+  protected final RewardCache<S> rewardCache;
 
   protected final MecComponentAnalyser mecAnalyser = new MecComponentAnalyser();
 
@@ -38,8 +48,11 @@ public class OnDemandValueIterator<S, M extends Model> implements Iterator<S, M>
   protected final int revisitThreshold;
   protected final double rMax;
 
-  // variable keeps track if new states have been explored and if handleComponents() needs to be run again.
-  protected boolean newStatesSinceCollapse = false;
+  // Maintains the MECs of the partial model across calls of handleComponents().
+  protected final IncrementalMecDecomposition mecDecomposition = new IncrementalMecDecomposition();
+
+  // States explored since the last search for components. If empty, handleComponents() need not be run again.
+  protected final IntSet newStatesSinceCollapse = new IntOpenHashSet();
 
   // stores most recent VI results for all states.
   protected Int2ObjectMap<Int2DoubleMap> mecValueCache = new Int2ObjectOpenHashMap<>();
@@ -48,6 +61,10 @@ public class OnDemandValueIterator<S, M extends Model> implements Iterator<S, M>
 
   protected final long timeout;
 
+  // If set, VI of independent mecs runs in parallel on this executor.
+  @Nullable
+  private ExecutorService mecExecutor = null;
+
   // Each string will be added to the temp.txt file.
   protected final List<String> additionalWriteInfo = new ArrayList<>();
 
@@ -57,6 +74,7 @@ public class OnDemandValueIterator<S, M extends Model> implements Iterator<S, M>
 
     this.values = values;
     this.rewardGenerator = rewardGenerator;
+    this.rewardCache = new RewardCache<>(explorer.model(), explorer::getState, rewardGenerator);
 
     this.revisitThreshold = revisitThreshold;
     this.boundedMecQuotient = new BoundedMecQuotient<>(explorer.model());
@@ -66,6 +84,8 @@ public class OnDemandValueIterator<S, M extends Model> implements Iterator<S, M>
 
     this.timeout = timeout;
 
+    // The initial states have already been explored by the explorer.
+    newStatesSinceCollapse.addAll(explorer.exploredStates());
   }
 
   /**
@@ -275,6 +295,61 @@ public class OnDemandValueIterator<S, M extends Model> implements Iterator<S, M>
    * @param mecRepresentative: Representative state of mec on which VI has to be run.
    */
   protected void updateMec(int mecRepresentative){
+    MecUpdate update = prepareMecUpdate(mecRepresentative);
+    if (update != null) {
+      update.run();
+      finishMecUpdate(update);
+    }
+  }
+
+  /**
+   * Runs VI on several mecs. The value iterations are independent of each other and run in parallel if an executor is
+   * set, while preparation and the stay action updates happen sequentially in the given order.
+   * @param mecIndices: Representatives (or indices) of the mecs on which VI has to be run.
+   */
+  protected void updateMecs(IntCollection mecIndices){
+    List<MecUpdate> updates = new ArrayList<>(mecIndices.size());
+    for (int mecIndex : mecIndices) {
+      MecUpdate update = prepareMecUpdate(mecIndex);
+      if (update != null) {
+        updates.add(update);
+      }
+    }
+
+    if (mecExecutor == null || updates.size() <= 1) {
+      updates.forEach(MecUpdate::run);
+    } else {
+      // Every value iteration checks the timeout on its own, so this returns once all of them stopped.
+      List<Callable<Void>> tasks = updates.stream()
+              .map(update -> (Callable<Void>) () -> { update.run(); return null; })
+              .collect(Collectors.toList());
+      try {
+        for (Future<Void> future : mecExecutor.invokeAll(tasks)) {
+          future.get();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new IllegalStateException(cause);
+      }
+    }
+
+    updates.forEach(this::finishMecUpdate);
+  }
+
+  /**
+   * Checks whether VI has to be run on mec and sets it up. Everything which modifies shared state has to happen here,
+   * the returned update may run concurrently to other updates.
+   * @param mecRepresentative: Representative state of mec on which VI has to be run.
+   * @return the VI to run, or null if the bounds of mec are precise enough.
+   */
+  @Nullable
+  protected MecUpdate prepareMecUpdate(int mecRepresentative){
     assert this instanceof BlackOnDemandValueIterator || boundedMecQuotient.representative(mecRepresentative) == mecRepresentative;
 
     // mecBounds now contain the scaled reward upper and lower bounds.
@@ -283,7 +358,7 @@ public class OnDemandValueIterator<S, M extends Model> implements Iterator<S, M>
     double currPrecision = mecBounds.difference()*this.rMax;
 
     if(currPrecision<this.precision){
-      return;
+      return null;
     }
 
     double targetPrecision = currPrecision/2;
@@ -294,36 +369,83 @@ public class OnDemandValueIterator<S, M extends Model> implements Iterator<S, M>
     Mec mec = getMec(mecRepresentative);
 
     if (mec.states.size()==0){
-      return;
+      return null;
     }
 
     assert !isZero(targetPrecision);
 
     // Fetch the precomputed value map of the mec from the cache, and if there isn't any, then returns an empty map.
-    // The key of the map is mecRepresentative.
+    // The key of the map is mecRepresentative. VI continues from these values and updates them in place.
     Int2DoubleMap valueCache = mecValueCache.computeIfAbsent(mecRepresentative, s -> new Int2DoubleOpenHashMap());
 
-    // lambda function that returns a state object when given the state index. required for accessing reward generator function.
-    Int2ObjectFunction<S> stateIndexMap = explorer::getState;
-
-    RestrictedMecValueIterator<S, M> valueIterator = new RestrictedMecValueIterator<>(mec, targetPrecision, rewardGenerator, stateIndexMap, valueCache, rMax, timeout);
+    cacheRewards(mec);
+    RestrictedMecValueIterator<S, M> valueIterator = new RestrictedMecValueIterator<>(mec, targetPrecision, rewardCache, valueCache, rMax, timeout);
     valueIterator.setDistributionFunction(x -> y -> this.explorer.model().getChoice(x, y));
-    valueIterator.setLabelFunction(x -> y -> this.explorer.model().getActions(x).get(y).label());
 
-    valueIterator.run();
+    return new MecUpdate(mecRepresentative, mecBounds, () -> {
+      valueIterator.run();
+      return valueIterator.getBounds();
+    });
+  }
 
-    Bounds newBounds = valueIterator.getBounds();
+  /**
+   * Updates the stay action of the mec according to the result of its VI.
+   */
+  protected void finishMecUpdate(MecUpdate update){
+    Bounds newBounds = update.result();
     Bounds scaledBounds = Bounds.of(newBounds.lowerBound()/this.rMax, newBounds.upperBound()/this.rMax);
 
     // In the case when we run VI after some new states have been added, the lower bounds may be worse than the
     // previously computed bounds. However, we know that the MEC's reward must be greater than the previously computed
     // lower bound value. Thus, we can use the previously computer lower bound value for slightly faster convergence.
-    scaledBounds = scaledBounds.withLower(Math.max(scaledBounds.lowerBound(), mecBounds.lowerBound()));
+    scaledBounds = scaledBounds.withLower(Math.max(scaledBounds.lowerBound(), update.previousBounds.lowerBound()));
+
+    updateStayAction(update.mecIndex, scaledBounds);
+  }
+
+  /**
+   * The reward cache is not thread-safe, hence the rewards of all mec states are computed before VI starts.
+   */
+  protected void cacheRewards(Mec mec){
+    for (int state : mec.states) {
+      if (!rewardCache.isCached(state)) {
+        rewardCache.cache(state);
+      }
+    }
+  }
+
+  /**
+   * Enables running VI of independent mecs on the given executor, or disables it if null. The executor is not shut
+   * down by this class.
+   */
+  public void setMecExecutor(@Nullable ExecutorService mecExecutor){
+    this.mecExecutor = mecExecutor;
+  }
+
+  /**
+   * VI on a single mec, prepared by prepareMecUpdate.
+   */
+  protected static final class MecUpdate {
+    final int mecIndex;
+    final Bounds previousBounds; // scaled bounds of the mec before VI
+    private final Supplier<Bounds> valueIteration; // returns the unscaled bounds
+    @Nullable
+    private Bounds result = null;
+
+    MecUpdate(int mecIndex, Bounds previousBounds, Supplier<Bounds> valueIteration) {
+      this.mecIndex = mecIndex;
+      this.previousBounds = previousBounds;
+      this.valueIteration = valueIteration;
+    }
 
-    updateStayAction(mecRepresentative, scaledBounds);
+    void run() {
+      result = valueIteration.get();
+    }
 
-    valueCache = valueIterator.getValues();
-    mecValueCache.put(mecRepresentative, valueCache);
+    Bounds result() {
+      assert result != null;
+      return result;
+    }
   }
 
 
@@ -332,18 +454,19 @@ public class OnDemandValueIterator<S, M extends Model> implements Iterator<S, M>
    */
   public void handleComponents(){
 
-    if(!newStatesSinceCollapse){
+    if(newStatesSinceCollapse.isEmpty()){
       return;
     }
 
-    newStatesSinceCollapse = false;
     logger.log(Level.INFO, "Searching components");
 
     NatBitSet states = NatBitSets.copyOf(explorer.exploredStates());
     states.removeAll(boundedMecQuotient.removedStates()); // states variable now stores only the states in the current collapsed partial model.
 
-    List<NatBitSet> newComponents = mecAnalyser.findComponents(boundedMecQuotient, states);  // find all MECs in the partial model.
-    // This contains only newly found components. Since all previously found components are collapsed, they won't be recognized as MECs anymore.
+    // find all MECs in the partial model. Since all previously found components are collapsed, the collapsed model has
+    // no MECs apart from those through newly explored states, so only the region around these states is searched.
+    List<NatBitSet> newComponents = mecDecomposition.update(boundedMecQuotient, states, newStatesSinceCollapse);
+    newStatesSinceCollapse.clear();
 
     if(newComponents.isEmpty()){
       return;
@@ -357,6 +480,27 @@ public class OnDemandValueIterator<S, M extends Model> implements Iterator<S, M>
 
     // This collapses the sets of states into representatives. Further, the stay action is added here.
     IntList representatives = boundedMecQuotient.collapse(newComponents);
+    // Collapsed components are no end components of the quotient anymore.
+    mecDecomposition.clear();
+    var componentIterator = newComponents.iterator();
+    for (int representative : representatives) {
+      // New states have been added to the mec. VI continues from the values of the previously collapsed mecs which are
+      // part of it, the new states are initialised from their neighbours.
+      Int2DoubleMap warmStartValues = mergeValueCaches(componentIterator.next());
+      if (!warmStartValues.isEmpty()) {
+        mecValueCache.put(representative, warmStartValues);
+      }
+
+      // Reset stay action bounds as mec has been expanded
+      boundedMecQuotient.updateStayAction(representative, Bounds.of(BoundedMecQuotient.getBoundsFromStayAction(boundedMecQuotient.getStayAction(representative)).lowerBound(), 1));
+    }
+
+    // We need to run VI on the MEC again to account for the following case. It can be that the bounds on the MEC are
+    // already very precise. Thus, the probability of reaching the uncertain state would be very small and we may
+    // never be able to run VI on the newly added states again. Thus, we need to run VI straight after adding new
+    // states.
+    updateMecs(representatives);
+
     var collapseIterator = newComponents.iterator();
     IntIterator representativeIterator = representatives.iterator();
 
@@ -364,24 +508,37 @@ public class OnDemandValueIterator<S, M extends Model> implements Iterator<S, M>
       // the components and the corresponding representatives are in the same order.
       int representative = representativeIterator.nextInt();
 
-      // Removing from cache as new states have been added to mec and all values need to computed again from start.
-      mecValueCache.remove(representative);
-
-      // Reset stay action bounds as mec has been expanded
-      boundedMecQuotient.updateStayAction(representative, Bounds.of(BoundedMecQuotient.getBoundsFromStayAction(boundedMecQuotient.getStayAction(representative)).lowerBound(), 1));
-
-      // We need to run VI on the MEC again to account for the following case. It can be that the bounds on the MEC are
-      // already very precise. Thus, the probability of reaching the uncertain state would be very small and we may
-      // never be able to run VI on the newly added states again. Thus, we need to run VI straight after adding new
-      // states.
-      updateMec(representative);
-
       // updates the bounds of the representative according to all actions of mec members going out of the MEC.
       values.collapse(representative, choices(representative), collapseIterator.next());
     }
 
   }
 
+  /**
+   * Removes the cached VI values of all previously collapsed mecs whose representative is part of component and merges
+   * them. Accumulated values of different mecs differ by the number of iterations run on them, hence each is shifted
+   * to start at zero; only differences between states matter for the convergence of VI.
+   * @param component: States of the collapsed model forming a new mec.
+   * @return the merged values, keyed by states of the original model.
+   */
+  private Int2DoubleMap mergeValueCaches(NatBitSet component){
+    Int2DoubleMap merged = new Int2DoubleOpenHashMap();
+    for (int state : component) {
+      Int2DoubleMap cachedValues = mecValueCache.remove(state);
+      if (cachedValues == null || cachedValues.isEmpty()) {
+        continue;
+      }
+      double minValue = Double.MAX_VALUE;
+      for (double value : cachedValues.values()) {
+        minValue = Math.min(minValue, value);
+      }
+      for (Int2DoubleMap.Entry entry : cachedValues.int2DoubleEntrySet()) {
+        merged.put(entry.getIntKey(), entry.getDoubleValue() - minValue);
+      }
+    }
+    return merged;
+  }
+
   /**
    * Add state to partial model.
    * @param state: Integer value of state to be explored.
@@ -389,7 +546,7 @@ public class OnDemandValueIterator<S, M extends Model> implements Iterator<S, M>
   protected void explore(int state) throws PrismException {
     assert !explorer.isExploredState(state);
     assert !BoundedMecQuotient.isSinkState(state);
-    newStatesSinceCollapse = true;
+    newStatesSinceCollapse.add(state);
     explorer.exploreState(state);  //  state added to partial model, and explorer.isExploredState(state) is set to true.
   }
 
@@ -2,7 +2,7 @@ package de.tum.in.pet.implementation.meanPayoff;
 
 import de.tum.in.naturals.set.NatBitSet;
 import de.tum.in.pet.values.Bounds;
-import de.tum.in.probmodels.generator.RewardGenerator;
+import de.tum.in.probmodels.generator.RewardCache;
 import de.tum.in.probmodels.graph.Mec;
 import de.tum.in.probmodels.model.Distribution;
 import it.unimi.dsi.fastutil.ints.*;
@@ -17,9 +17,8 @@ public class RestrictedMecBoundedValueIterator<S> {
   public final Mec mec; // Mec with respect to original model
   public final double targetPrecision;
   public final Int2ObjectMap<Bounds> values;  // map of states and total values; the average value can be obtained by dividing by iterCount
-  public final RewardGenerator<S> rewardGenerator;
+  public final RewardCache<S> rewards; // state and transition rewards, computed once per state
   private int iterCount;  // number of iterations in value iteration
-  private final Int2ObjectFunction<S> stateIndexMap; // map from original model state number to corresponding state object
   private final double rMax;
 
   private Bounds bounds;
@@ -30,34 +29,29 @@ public class RestrictedMecBoundedValueIterator<S> {
   // Returns the distribution for a state x and it's corresponding action index y
   private Int2ObjectFunction<Int2ObjectFunction<Distribution>> distributionFunction = x -> (y -> null);
 
-  // Returns the label of the action y
-  private Int2ObjectFunction<Int2ObjectFunction<Object>> labelFunction = x -> (y -> null);
-
   private final double aperidocityConstant;
 
   private final long timeout;
 
-  public RestrictedMecBoundedValueIterator(Mec mec, double targetPrecision, RewardGenerator<S> rewardGenerator,
-                                    Int2ObjectFunction<S> stateIndexMap, double rMax, long timeout){
+  public RestrictedMecBoundedValueIterator(Mec mec, double targetPrecision, RewardCache<S> rewards,
+                                    double rMax, long timeout){
     this.mec = mec;
     this.targetPrecision = targetPrecision;
     this.values = new Int2ObjectOpenHashMap<>();
-    this.rewardGenerator = rewardGenerator;
-    this.stateIndexMap = stateIndexMap;
+    this.rewards = rewards;
     this.iterCount = 0;
     this.aperidocityConstant = 0.8;
     this.rMax = rMax;
     this.timeout = timeout;
   }
 
-  public RestrictedMecBoundedValueIterator(Mec mec, double targetPrecision, RewardGenerator<S> rewardGenerator,
-                                    Int2ObjectFunction<S> stateIndexMap, Int2ObjectMap<Bounds> values, double rMax,
+  public RestrictedMecBoundedValueIterator(Mec mec, double targetPrecision, RewardCache<S> rewards,
+                                    Int2ObjectMap<Bounds> values, double rMax,
                                            long timeout){
     this.mec = mec;
     this.targetPrecision = targetPrecision;
     this.values = values;
-    this.rewardGenerator = rewardGenerator;
-    this.stateIndexMap = stateIndexMap;
+    this.rewards = rewards;
     this.iterCount = 0;
     this.aperidocityConstant = 0.8;
     this.rMax = rMax;
@@ -79,10 +73,6 @@ public class RestrictedMecBoundedValueIterator<S> {
     this.distributionFunction = distributionFunction;
   }
 
-  public void setLabelFunction(Int2ObjectFunction<Int2ObjectFunction<Object>> labelFunction) {
-    this.labelFunction = labelFunction;
-  }
-
   public void run(){
     int numStates = mec.size();
     NatBitSet states = mec.states;
@@ -96,11 +86,26 @@ public class RestrictedMecBoundedValueIterator<S> {
       diff.add(new Pair<>(0d, 0d));
     }
 
-    if(values.size()==0) { // no pre-computed values sent
-      IntIterator stateIterator = states.iterator();
-      while (stateIterator.hasNext()) {
-        int state = stateIterator.nextInt();
-        values.put(state, Bounds.of(0, 0));
+    // If no pre-computed values were sent, this starts from zero. Otherwise, VI continues from the given values and
+    // states without a value, e.g. states which joined the MEC since its previous VI, are initialised from their
+    // neighbours.
+    if (!values.keySet().containsAll(states)) {
+      CompiledMec compiledMec = CompiledMec.compile(mec, rewards, distributionFunction);
+      double[] lowerValues = new double[numStates];
+      double[] upperValues = new double[numStates];
+      boolean[] known = new boolean[numStates];
+      for (int i = 0; i < numStates; i++) {
+        Bounds stateValues = values.get(compiledMec.states[i]);
+        if (stateValues != null) {
+          lowerValues[i] = stateValues.lowerBound();
+          upperValues[i] = stateValues.upperBound();
+          known[i] = true;
+        }
+      }
+      compiledMec.fillUnknownValues(lowerValues, known.clone());
+      compiledMec.fillUnknownValues(upperValues, known);
+      for (int i = 0; i < numStates; i++) {
+        values.putIfAbsent(compiledMec.states[i], Bounds.of(lowerValues[i], upperValues[i]));
       }
     }
 
@@ -120,10 +125,8 @@ public class RestrictedMecBoundedValueIterator<S> {
 //        List<Action> choices = model.getActions(state);  // get all actions (not distributions)
         // Get Actions from original model, filter according to mec actions
         for (int action : allowedActions) {  // find the value of the state over all actions
-          // Send action label instead of action object. State object needs to be fetched from stateIndexMap.
           // val_transformed = const*rewards + actionVal. Instead, we have found val = rewards + actionVal/const (This division is done by actionVal itself). We do this to store the original value.
-          double val = rewardGenerator.transitionReward(stateIndexMap.get(state), labelFunction.apply(state).apply(action)) // Action.label() returns label
-                  + rewardGenerator.stateReward(stateIndexMap.get(state));
+          double val = rewards.reward(state, action); // state and transition reward, looked up from the cache
 
           Bounds actionBounds = getActionBounds(state, distributionFunction.apply(state).apply(action), // Action.distribution returns distribution
                   confidenceWidthFunction.get(state).get(action));
@@ -1,8 +1,7 @@
 package de.tum.in.pet.implementation.meanPayoff;
 
-import de.tum.in.naturals.set.NatBitSet;
 import de.tum.in.pet.values.Bounds;
-import de.tum.in.probmodels.generator.RewardGenerator;
+import de.tum.in.probmodels.generator.RewardCache;
 import de.tum.in.probmodels.graph.Mec;
 import de.tum.in.probmodels.model.Distribution;
 import de.tum.in.probmodels.model.Model;
@@ -14,9 +13,8 @@ public class RestrictedMecValueIterator<S, M extends Model> {
   public final Mec mec; // Mec with respect to original model
   public final double targetPrecision;
   public final Int2DoubleMap values;  // map of states and total values; the average value can be obtained by dividing by iterCount
-  public final RewardGenerator<S> rewardGenerator;
+  public final RewardCache<S> rewards; // state and transition rewards, computed once per state
   private int iterCount;  // number of iterations in value iteration
-  private final Int2ObjectFunction<S> stateIndexMap; // map from original model state number to corresponding state object
   private final double rMax;
   private final long timeout;
 
@@ -31,29 +29,24 @@ public class RestrictedMecValueIterator<S, M extends Model> {
   // Returns the distribution for a state x and it's corresponding action index y
   private Int2ObjectFunction<Int2ObjectFunction<Distribution>> distributionFunction = x -> (y -> null);
 
-  // Returns the label of the action y
-  private Int2ObjectFunction<Int2ObjectFunction<Object>> labelFunction = x -> (y -> null);
-
-  public RestrictedMecValueIterator(Mec mec, double targetPrecision, RewardGenerator<S> rewardGenerator,
-                                    Int2ObjectFunction<S> stateIndexMap, double rMax, long timeout){
+  public RestrictedMecValueIterator(Mec mec, double targetPrecision, RewardCache<S> rewards,
+                                    double rMax, long timeout){
     this.mec = mec;
     this.targetPrecision = targetPrecision;
     this.timeout = timeout;
     this.values = new Int2DoubleOpenHashMap();
-    this.rewardGenerator = rewardGenerator;
-    this.stateIndexMap = stateIndexMap;
+    this.rewards = rewards;
     this.iterCount = 0;
     this.aperidocityConstant = 0.8;
     this.rMax = rMax;
   }
 
-  public RestrictedMecValueIterator(Mec mec, double targetPrecision, RewardGenerator<S> rewardGenerator,
-                                    Int2ObjectFunction<S> stateIndexMap, Int2DoubleMap values, double rMax, long timeout){
+  public RestrictedMecValueIterator(Mec mec, double targetPrecision, RewardCache<S> rewards,
+                                    Int2DoubleMap values, double rMax, long timeout){
     this.mec = mec;
     this.targetPrecision = targetPrecision;
     this.values = values;
-    this.rewardGenerator = rewardGenerator;
-    this.stateIndexMap = stateIndexMap;
+    this.rewards = rewards;
     this.timeout = timeout;
     this.iterCount = 0;
     this.aperidocityConstant = 0.8;
@@ -62,64 +55,60 @@ public class RestrictedMecValueIterator<S, M extends Model> {
 
   // todo: confidence width
   /**
-   * Simulates VI.
+   * Simulates VI. The MEC is first compiled to dense local indices, each sweep then works on primitive arrays.
    */
   public void run(){
-    int numStates = mec.size();
-    NatBitSet states = mec.states;
-    double[] diff =new double[numStates];  // This array stores the difference of values for each state between two successive iterations. This is Delta_n in CAV'17.
-
-    if(values.size()==0) { // no pre-computed values sent
-      IntIterator stateIterator = states.iterator();
-      while (stateIterator.hasNext()) {
-        int state = stateIterator.nextInt();
-        values.put(state, 0.0);
+    CompiledMec compiledMec = CompiledMec.compile(mec, rewards, distributionFunction);
+    int numStates = compiledMec.size();
+
+    // If no pre-computed values were sent, this starts from zero. Otherwise, VI continues from the given values and
+    // states without a value are initialised from their neighbours.
+    double[] currentValues = new double[numStates];
+    boolean[] known = new boolean[numStates];
+    for (int i = 0; i < numStates; i++) {
+      int state = compiledMec.states[i];
+      if (values.containsKey(state)) {
+        currentValues[i] = values.get(state);
+        known[i] = true;
       }
     }
+    compiledMec.fillUnknownValues(currentValues, known);
+    double[] newValues = new double[numStates];
 
     double max, min;
     do {
-      Int2DoubleOpenHashMap oldValues = new Int2DoubleOpenHashMap(values);
-      Int2DoubleOpenHashMap tempValues = new Int2DoubleOpenHashMap();
-      IntIterator stateIterator = states.iterator();
-      int count = 0;
+      max=0.0; // max of diff (max of Delta_n, the difference of values between two successive iterations in CAV'17)
+      min=Double.MAX_VALUE; // min of diff (min of Delta_n)
       // A single iteration of VI
-      while (stateIterator.hasNext()) {
-        int state = stateIterator.nextInt();
+      for (int i = 0; i < numStates; i++) {
+        double oldValue = currentValues[i];
         double maxActionValue = 0.0;
-        IntSet allowedActions = mec.actions.get(state);  // allowedActions numbered as in original model
-        assert allowedActions != null;
-        // Get Actions from original model, filter according to mec actions
-        for (int action : allowedActions) {  // find the value of the state over all actions
-          // Send action label instead of action object. State object needs to be fetched from stateIndexMap.
+        for (int action = compiledMec.stateOffsets[i]; action < compiledMec.stateOffsets[i + 1]; action++) {
           // val_transformed = const*rewards + actionVal. Instead, we have found val = rewards + actionVal/const (This division is done by actionVal itself). We do this to store the original value.
-          double val = rewardGenerator.transitionReward(stateIndexMap.get(state), labelFunction.apply(state).apply(action)) // Action.label() returns label
-                  + rewardGenerator.stateReward(stateIndexMap.get(state))
-                  + getActionVal(state, distributionFunction.apply(state).apply(action)); // Action.distribution returns distribution
+          double val = compiledMec.rewards[action] + getActionVal(compiledMec, action, oldValue, currentValues);
           if (val > maxActionValue) {
             maxActionValue = val;
           }
         }
-        tempValues.put(state, maxActionValue);
-        diff[count++] = (maxActionValue - oldValues.get(state));
-      }
-      for(int state: values.keySet()) {
-        values.put(state, tempValues.get(state));
-      }
-      iterCount++;
+        newValues[i] = maxActionValue;
 
-      max=0.0; // max of diff (max of Delta_n)
-      min=Double.MAX_VALUE; // min of diff (min of Delta_n)
-      for (double v : diff) {
-        if (v > max) {
-          max = v;
+        double diff = maxActionValue - oldValue;
+        if (diff > max) {
+          max = diff;
         }
-        if (v < min) {
-          min = v;
+        if (diff < min) {
+          min = diff;
         }
       }
+      double[] swap = currentValues;
+      currentValues = newValues;
+      newValues = swap;
+      iterCount++;
     } while ((max-min) >= targetPrecision && (!isTimeout()));  // stopping criterion of value iteration
 
+    for (int i = 0; i < numStates; i++) {
+      values.put(compiledMec.states[i], currentValues[i]);
+    }
 
     // Sometimes the upper bound is slightly greater than rMax, because of floating point error.
     // This was observed when running the pnueli-zuck3 model.
@@ -130,32 +119,24 @@ public class RestrictedMecValueIterator<S, M extends Model> {
     bounds = Bounds.of(min, max);
   }
 
-  // todo: vectorize operation
-
   /**
-   * @param state: Integer value of the state from which the action originates.
-   * @param distribution: Distribution consisting of the probability of reaching successor states for the action.
+   * Self loops are added with probability (1 - aperiodicity) to every action, i.e. the transformed value is
+   * aperiodicity * (aperiodicity * sum_s' p(s') * value(s') + (1 - aperiodicity) * value(s)). This returns the
+   * original value, i.e. the transformed value divided by aperiodicity.
+   *
+   * @param compiledMec: MEC in local indices.
+   * @param action: Index of the action in compiledMec.
+   * @param stateValue: Current value of the state from which the action originates.
+   * @param currentValues: Current values of all states in local indices.
    * @return Returns the associated value of a single action.
    */
-  private double getActionVal(int state, Distribution distribution) {
-    //int numSuccessors = distribution.size();
+  private double getActionVal(CompiledMec compiledMec, int action, double stateValue, double[] currentValues) {
     double sum = 0.0;
-    for (Int2DoubleMap.Entry entry : distribution) {
-      int successor = entry.getIntKey();
-/*
-      if (successor == state) {
-        continue;
-      }
-*/
-      double probability = this.aperidocityConstant*entry.getDoubleValue();
-      assert values.containsKey(successor);
-      // this gives transformed value of successor
-      double successorVal = this.aperidocityConstant*values.get(successor);
-      sum = sum + probability * successorVal;
+    for (int transition = compiledMec.actionOffsets[action]; transition < compiledMec.actionOffsets[action + 1];
+         transition++) {
+      sum += compiledMec.probabilities[transition] * currentValues[compiledMec.successors[transition]];
     }
-    sum += (1-this.aperidocityConstant)*this.aperidocityConstant*values.get(state);
-    // sum stores the transformed value. This returns the original value
-    return sum/this.aperidocityConstant;
+    return this.aperidocityConstant * sum + (1 - this.aperidocityConstant) * stateValue;
   }
 
 
@@ -163,10 +144,6 @@ public class RestrictedMecValueIterator<S, M extends Model> {
     this.distributionFunction = distributionFunction;
   }
 
-  public void setLabelFunction(Int2ObjectFunction<Int2ObjectFunction<Object>> labelFunction) {
-    this.labelFunction = labelFunction;
-  }
-
 
   /**
    * @return Returns the calculated reward upper and lower bounds.
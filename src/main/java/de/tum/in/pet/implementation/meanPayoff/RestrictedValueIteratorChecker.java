@@ -12,6 +12,7 @@ import de.tum.in.probmodels.explorer.Explorer;
 import de.tum.in.probmodels.generator.Generator;
 import de.tum.in.probmodels.generator.MdpGenerator;
 import de.tum.in.probmodels.generator.PrismRewardGenerator;
+import de.tum.in.probmodels.generator.RewardCache;
 import de.tum.in.probmodels.generator.RewardGenerator;
 import de.tum.in.probmodels.graph.ComponentAnalyser;
 import de.tum.in.probmodels.graph.Mec;
@@ -101,9 +102,8 @@ public class RestrictedValueIteratorChecker {
     var explorer = DefaultExplorer.of(partialModel, generator, false);
     exploreFullModel(explorer);
 
-    Int2ObjectFunction<S> stateIndexMap = explorer::getState;
-
     M model = explorer.model();
+    RewardCache<S> rewardCache = new RewardCache<>(model, explorer::getState, rewardGenerator);
 
     List<NatBitSet> components = analyser.findComponents(model, explorer.exploredStates());
     if (components.isEmpty()){
@@ -116,10 +116,9 @@ public class RestrictedValueIteratorChecker {
     Mec mec = Mec.create(model, component);
 
     RestrictedMecBoundedValueIterator<S> valueIterator = new RestrictedMecBoundedValueIterator<>(mec, precision,
-            rewardGenerator, stateIndexMap, Double.MAX_VALUE, System.currentTimeMillis() + DefaultInputValues.TIMEOUT);
+            rewardCache, Double.MAX_VALUE, System.currentTimeMillis() + DefaultInputValues.TIMEOUT);
     valueIterator.setConfidenceWidthFunction(x -> (y -> 0.01));
     valueIterator.setDistributionFunction(x -> (y -> model.getActions(x).get(y).distribution()));
-    valueIterator.setLabelFunction(x -> (y -> model.getActions(x).get(y).label()));
     valueIterator.run();
     Bounds bounds = valueIterator.getBounds();
     if(bounds==null){
@@ -134,7 +133,7 @@ public class RestrictedValueIteratorChecker {
   // MDP specific loading operations
   private static Bounds solveMdp(ModelGenerator prismGenerator, double precision) {
 
-    MarkovDecisionProcess partialModel = new MarkovDecisionProcess();
+    CompactMarkovDecisionProcess partialModel = new CompactMarkovDecisionProcess();
     ComponentAnalyser componentAnalyser = new MecComponentAnalyser();
     Generator<State> generator = new MdpGenerator(prismGenerator);
 
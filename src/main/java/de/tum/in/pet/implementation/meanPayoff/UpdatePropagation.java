@@ -0,0 +1,6 @@
+package de.tum.in.pet.implementation.meanPayoff;
+
+public enum UpdatePropagation {
+  SWEEP, // We update all explored states and deflate all mecs, repeatedly, until no bound changes any more
+  WORKLIST // We only update states whose successors changed, SCC by SCC in reverse topological order
+}
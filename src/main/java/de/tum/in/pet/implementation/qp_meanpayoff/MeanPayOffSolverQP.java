@@ -4,10 +4,12 @@ import de.tum.in.naturals.set.NatBitSet;
 import de.tum.in.naturals.set.NatBitSetFactory;
 import de.tum.in.naturals.set.NatBitSets;
 import de.tum.in.naturals.set.NatBitSetsUtil;
+import de.tum.in.probmodels.generator.RewardCache;
 import de.tum.in.probmodels.graph.Mec;
 import de.tum.in.probmodels.graph.MecComponentAnalyser;
 import de.tum.in.probmodels.model.MarkovDecisionProcess;
 import it.unimi.dsi.fastutil.ints.IntSet;
+import parser.State;
 import prism.PrismException;
 import simulator.ModulesFileModelGenerator;
 
@@ -27,7 +29,9 @@ public class MeanPayOffSolverQP {
         List<Mec> mecs = components.stream().map(component -> Mec.create(mdp, component))
                 .collect(Collectors.toList());
 
-        MeanPayoffLPWriter lpWriter = new MeanPayoffLPWriter(mdp, constructor.getRewardGenerator(), mecs, constructor.getStatesList());
+        RewardCache<State> rewards = new RewardCache<>(mdp, constructor.getStatesList()::get,
+                constructor.getRewardGenerator());
+        MeanPayoffLPWriter lpWriter = new MeanPayoffLPWriter(mdp, rewards, mecs);
         try {
             lpWriter.constructLP();
         } catch (Exception e) {
@@ -1,6 +1,6 @@
 package de.tum.in.pet.implementation.qp_meanpayoff;
 
-import de.tum.in.probmodels.generator.RewardGenerator;
+import de.tum.in.probmodels.generator.RewardCache;
 import de.tum.in.probmodels.graph.Mec;
 import de.tum.in.probmodels.model.*;
 import gurobi.*;
@@ -16,9 +16,8 @@ import java.util.List;
  */
 public class MeanPayoffLPWriter {
     private final MarkovDecisionProcess mdp;
-    private final RewardGenerator<State> rewardGenerator;
+    private final RewardCache<State> rewards;
     private final List<Mec> mecs;
-    private final List<State> statesList;
 
     private GRBEnv env;
     private GRBModel model;
@@ -34,11 +33,10 @@ public class MeanPayoffLPWriter {
 
 
 
-    public MeanPayoffLPWriter(MarkovDecisionProcess mdp, RewardGenerator<State> rewardGenerator, List<Mec> mecs, List<State> statesList) {
+    public MeanPayoffLPWriter(MarkovDecisionProcess mdp, RewardCache<State> rewards, List<Mec> mecs) {
         this.mdp = mdp;
-        this.rewardGenerator = rewardGenerator;
+        this.rewards = rewards;
         this.mecs = mecs;
-        this.statesList = statesList;
     }
 
     public void constructLP() throws GRBException {
@@ -171,7 +169,7 @@ public class MeanPayoffLPWriter {
         GRBLinExpr expr = new GRBLinExpr();
         expr.addTerm(1, y_s[state]);
 
-        for (int action = 0; action < mdp.getActions(state).size(); action++) {
+        for (int action = 0; action < mdp.getNumChoices(state); action++) {
             expr.addTerm(1, y_a.get(state)[action]);
         }
 
@@ -253,7 +251,7 @@ public class MeanPayoffLPWriter {
     private GRBLinExpr getRHSConstraint4(int state) {
         GRBLinExpr expr = new GRBLinExpr();
 
-        for (int action = 0; action < mdp.getActions(state).size(); action++) {
+        for (int action = 0; action < mdp.getNumChoices(state); action++) {
             expr.addTerm(1, x_a.get(state)[action]);
         }
 
@@ -264,12 +262,8 @@ public class MeanPayoffLPWriter {
         GRBLinExpr objectiveExpr = new GRBLinExpr();
 
         for (int state = 0; state < mdp.getNumStates(); state++) {
-            for (int actionIndex = 0; actionIndex < mdp.getActions(state).size(); actionIndex++) {
-                double transReward = rewardGenerator.transitionReward(statesList.get(state),
-                        mdp.getAction(state, actionIndex));
-
-                double stateReward = rewardGenerator.stateReward(statesList.get(state));
-                double r = stateReward + transReward;
+            for (int actionIndex = 0; actionIndex < mdp.getNumChoices(state); actionIndex++) {
+                double r = rewards.reward(state, actionIndex);
 
                 objectiveExpr.addTerm(r, x_a.get(state)[actionIndex]);
             }
@@ -304,7 +298,7 @@ public class MeanPayoffLPWriter {
 
     private void forEachIncomingTransition(int state, IncomingTransitionConsumer consumer) {
         for (int s = 0; s < mdp.getNumStates(); s++) {
-            for (int action = 0; action < mdp.getActions(s).size(); action++) {
+            for (int action = 0; action < mdp.getNumChoices(s); action++) {
 
                 int finalAction = action;
                 int finalS = s;
@@ -3,6 +3,7 @@ package de.tum.in.pet.implementation.reachability;
 import de.tum.in.pet.sampler.SuccessorHeuristic;
 import de.tum.in.pet.util.SampleUtil;
 import de.tum.in.pet.values.Bounds;
+import de.tum.in.pet.values.BoundsStore;
 import de.tum.in.probmodels.model.Distribution;
 import it.unimi.dsi.fastutil.ints.*;
 import prism.Pair;
@@ -22,7 +23,7 @@ public class BlackUnboundedReachValues extends UnboundedReachValues{
   // Returns the confidence width for a state x and it's corresponding action index y
   private Int2ObjectFunction<Int2DoubleFunction> confidenceWidthFunction = x -> (y -> (0));
 
-  private Int2ObjectMap<Bounds> oldBounds;
+  private BoundsStore oldBounds;
 
   public BlackUnboundedReachValues(ValueUpdate update, UpdateMethod updateMethod, IntPredicate target, double precision,
                                    SuccessorHeuristic heuristic) {
@@ -45,7 +46,7 @@ public class BlackUnboundedReachValues extends UnboundedReachValues{
    * Creates a copy of the current bounds.
    */
   public void cacheCurrBounds(){
-    oldBounds = new Int2ObjectOpenHashMap<>(this.bounds);
+    oldBounds = bounds.copy();
   }
 
   /**
@@ -54,9 +55,11 @@ public class BlackUnboundedReachValues extends UnboundedReachValues{
    * @return true if there are changes, else false
    */
   public boolean checkProgress(){
-    for(int state: bounds.keySet()){
-      if(!oldBounds.containsKey(state)||!((Math.abs(bounds.get(state).upperBound()-oldBounds.get(state).upperBound())<1e-6)&&
-              (Math.abs(bounds.get(state).lowerBound()-oldBounds.get(state).lowerBound())<1e-6))){
+    IntIterator iterator = bounds.states();
+    while (iterator.hasNext()) {
+      int state = iterator.nextInt();
+      if(!oldBounds.contains(state)||!((Math.abs(bounds.upperBound(state)-oldBounds.upperBound(state))<1e-6)&&
+              (Math.abs(bounds.lowerBound(state)-oldBounds.lowerBound(state))<1e-6))){
         return true;
       }
     }
@@ -204,7 +207,7 @@ public class BlackUnboundedReachValues extends UnboundedReachValues{
 
     for (int state: states){
       if (upperBound(state)>newUpperBound) {
-        bounds.put(state, Bounds.of(lowerBound(state), newUpperBound));
+        bounds.set(state, lowerBound(state), newUpperBound);
       }
     }
   }
@@ -15,21 +15,24 @@ import de.tum.in.pet.sampler.UnboundedSamplerConfig;
 import de.tum.in.pet.util.CliHelper;
 import de.tum.in.pet.util.Result;
 import de.tum.in.pet.values.ValueVerdict;
+import de.tum.in.probmodels.explorer.ConcurrentExplorer;
 import de.tum.in.probmodels.explorer.DefaultExplorer;
 import de.tum.in.probmodels.explorer.Explorer;
 import de.tum.in.probmodels.generator.CtmcEmbeddingGenerator;
 import de.tum.in.probmodels.generator.DtmcGenerator;
 import de.tum.in.probmodels.generator.Generator;
+import de.tum.in.probmodels.generator.GeneratorPool;
 import de.tum.in.probmodels.generator.MdpGenerator;
 import de.tum.in.probmodels.generator.SafetyGenerator;
 import de.tum.in.probmodels.graph.ComponentAnalyser;
 import de.tum.in.probmodels.graph.MecComponentAnalyser;
 import de.tum.in.probmodels.graph.SccComponentAnalyser;
+import de.tum.in.probmodels.model.CompactMarkovDecisionProcess;
 import de.tum.in.probmodels.model.MarkovChain;
-import de.tum.in.probmodels.model.MarkovDecisionProcess;
 import de.tum.in.probmodels.model.Model;
 import de.tum.in.probmodels.util.PrismExpressionWrapper;
 import de.tum.in.probmodels.util.PrismHelper;
+import de.tum.in.probmodels.util.PrismWrappedException;
 import it.unimi.dsi.fastutil.ints.IntCollection;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -39,6 +42,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.function.IntPredicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -131,16 +135,22 @@ public final class ReachChecker {
     return true;
   }
 
-  private static Result<?, ?> solve(ModelGenerator generator, PrismQuery<?> expression,
-      SuccessorHeuristic heuristic, double precision) throws PrismException {
+  // Package-private for the tests
+  static Result<?, ?> solve(ModelGenerator generator, ModulesFile modulesFile,
+      Prism prism, PrismQuery<?> expression, SuccessorHeuristic heuristic, double precision,
+      UnboundedSamplerConfig config) throws PrismException {
     ModelType modelType = generator.getModelType();
+    Function<ModelGenerator, Generator<State>> wrapper;
     switch (modelType) {
       case CTMC:
-        return solveCtmc(generator, expression, heuristic, precision);
+        wrapper = CtmcEmbeddingGenerator::new;
+        break;
       case DTMC:
-        return solveDtmc(generator, expression, heuristic, precision);
+        wrapper = DtmcGenerator::new;
+        break;
       case MDP:
-        return solveMdp(generator, expression, heuristic, precision);
+        wrapper = MdpGenerator::new;
+        break;
       case LTS:
       case CTMDP:
       case PTA:
@@ -149,14 +159,43 @@ public final class ReachChecker {
       default:
         throw new UnsupportedOperationException();
     }
+
+    if (config.threads() == 1) {
+      return solve(modelType, wrapper.apply(generator), expression, heuristic, precision, config);
+    }
+    // PRISM generators are not thread-safe, each sampling thread explores with its own one
+    try (GeneratorPool<State> pool = new GeneratorPool<>(() -> {
+      try {
+        return wrapper.apply(new ModulesFileModelGenerator(modulesFile, prism));
+      } catch (PrismException e) {
+        throw new PrismWrappedException(e);
+      }
+    }, config.threads())) {
+      return solve(modelType, pool, expression, heuristic, precision, config);
+    }
+  }
+
+  private static Result<?, ?> solve(ModelType modelType, Generator<State> generator,
+      PrismQuery<?> expression, SuccessorHeuristic heuristic, double precision,
+      UnboundedSamplerConfig config) throws PrismException {
+    switch (modelType) {
+      case CTMC:
+        return solveCtmc(generator, expression, heuristic, precision, config);
+      case DTMC:
+        return solveDtmc(generator, expression, heuristic, precision, config);
+      case MDP:
+        return solveMdp(generator, expression, heuristic, precision, config);
+      default:
+        throw new AssertionError(modelType);
+    }
   }
 
   private static <S, M extends Model, R> Result<S, R> solve(Explorer<S, M> explorer,
-      SuccessorHeuristic heuristic, double precision, ComponentAnalyser componentAnalyser,
-      IntPredicate predicate, QueryType<R> type) throws PrismException {
+      SuccessorHeuristic heuristic, double precision, UnboundedSamplerConfig config,
+      ComponentAnalyser componentAnalyser, IntPredicate predicate, QueryType<R> type)
+      throws PrismException {
     var target = new ReachabilityCache(predicate);
     var values = new UnboundedReachValues(type.update(), target, precision, heuristic);
-    UnboundedSamplerConfig config = UnboundedSamplerConfig.getDefault();
     var sampler = new UnboundedSampler<>(explorer, componentAnalyser, values, config);
 
     logger.log(Level.INFO, "Checking expression {0} {1}", new Object[] {predicate, type});
@@ -190,7 +229,8 @@ public final class ReachChecker {
 
   private static <M extends Model, R> Result<?, R> solve(PrismQuery<R> query,
       ComponentAnalyser analyser, M partialModel, Generator<State> generator,
-      SuccessorHeuristic heuristic, double precision) throws PrismException {
+      SuccessorHeuristic heuristic, double precision,
+      UnboundedSamplerConfig config) throws PrismException {
     if (query.isBounded()) {
       ExpressionTemporal prismExpression = query.expression();
       checkArgument(prismExpression.getOperator() == ExpressionTemporal.P_F);
@@ -209,9 +249,9 @@ public final class ReachChecker {
 
     Expression right = prismExpression.getOperand2();
     if (prismExpression.getOperator() == ExpressionTemporal.P_F) {
-      var explorer = DefaultExplorer.of(partialModel, generator, false);
+      var explorer = unboundedExplorer(partialModel, generator, config);
       var predicate = new StateToIntTarget<>(new PrismExpressionWrapper(right), explorer::getState);
-      return solve(explorer, heuristic, precision, analyser, predicate, query.type());
+      return solve(explorer, heuristic, precision, config, analyser, predicate, query.type());
     }
 
     Expression left = prismExpression.getOperand1();
@@ -226,37 +266,46 @@ public final class ReachChecker {
 
     var productGenerator = new SafetyGenerator<>(generator, new PrismExpressionWrapper(safety));
     var predicate = new UntilTargetPredicate<>(new PrismExpressionWrapper(right));
-    var explorer = DefaultExplorer.of(partialModel, productGenerator, false);
+    var explorer = unboundedExplorer(partialModel, productGenerator, config);
     var productPredicate = new StateToIntTarget<>(predicate, explorer::getState);
 
-    return solve(explorer, heuristic, precision, analyser, productPredicate, query.type());
+    return solve(explorer, heuristic, precision, config, analyser, productPredicate,
+        query.type());
   }
 
-  private static <R> Result<?, R> solveMdp(ModelGenerator prismGenerator,
-      PrismQuery<R> expression, SuccessorHeuristic heuristic, double precision)
-      throws PrismException {
-    MarkovDecisionProcess partialModel = new MarkovDecisionProcess();
+  // Several sampling threads explore concurrently, the generator then is a GeneratorPool
+  private static <S, M extends Model> Explorer<S, M> unboundedExplorer(M partialModel,
+      Generator<S> generator, UnboundedSamplerConfig config) {
+    return config.threads() > 1
+        ? ConcurrentExplorer.of(partialModel, generator, false)
+        : DefaultExplorer.of(partialModel, generator, false);
+  }
+
+  private static <R> Result<?, R> solveMdp(Generator<State> generator,
+      PrismQuery<R> expression, SuccessorHeuristic heuristic, double precision,
+      UnboundedSamplerConfig config) throws PrismException {
+    CompactMarkovDecisionProcess partialModel = new CompactMarkovDecisionProcess();
     ComponentAnalyser componentAnalyser = new MecComponentAnalyser();
-    Generator<State> generator = new MdpGenerator(prismGenerator);
-    return solve(expression, componentAnalyser, partialModel, generator, heuristic, precision);
+    return solve(expression, componentAnalyser, partialModel, generator, heuristic, precision,
+        config);
   }
 
-  private static <R> Result<?, R> solveCtmc(ModelGenerator prismGenerator,
-      PrismQuery<R> expression, SuccessorHeuristic heuristic, double precision)
-      throws PrismException {
+  private static <R> Result<?, R> solveCtmc(Generator<State> generator,
+      PrismQuery<R> expression, SuccessorHeuristic heuristic, double precision,
+      UnboundedSamplerConfig config) throws PrismException {
     MarkovChain partialModel = new MarkovChain();
     ComponentAnalyser componentAnalyser = new SccComponentAnalyser();
-    Generator<State> generator = new CtmcEmbeddingGenerator(prismGenerator);
-    return solve(expression, componentAnalyser, partialModel, generator, heuristic, precision);
+    return solve(expression, componentAnalyser, partialModel, generator, heuristic, precision,
+        config);
   }
 
-  private static <R> Result<?, R> solveDtmc(ModelGenerator prismGenerator,
-      PrismQuery<R> expression, SuccessorHeuristic heuristic, double precision)
-      throws PrismException {
+  private static <R> Result<?, R> solveDtmc(Generator<State> generator,
+      PrismQuery<R> expression, SuccessorHeuristic heuristic, double precision,
+      UnboundedSamplerConfig config) throws PrismException {
     MarkovChain partialModel = new MarkovChain();
     ComponentAnalyser componentAnalyser = new SccComponentAnalyser();
-    Generator<State> generator = new DtmcGenerator(prismGenerator);
-    return solve(expression, componentAnalyser, partialModel, generator, heuristic, precision);
+    return solve(expression, componentAnalyser, partialModel, generator, heuristic, precision,
+        config);
   }
 
   public static void main(String... args) throws IOException, PrismException {
@@ -273,6 +322,11 @@ public final class ReachChecker {
         "Only print result");
     Option relativeErrorOption = new Option(null, "relative-error", false,
         "Use relative error estimate");
+    Option threadsOption = new Option(null, "threads", true,
+        "Number of threads sampling concurrently (default 1)");
+    Option intervalIterationOption = new Option(null, "interval-iteration", true,
+        "Run interval iteration on the explored model after this many samples, growing with the "
+            + "explored model afterwards (default 0, disabled)");
 
     modelOption.setRequired(true);
     propertiesOption.setRequired(true);
@@ -286,7 +340,9 @@ public final class ReachChecker {
         .addOption(expectedValuesOption)
         .addOption(constantsOption)
         .addOption(onlyPrintResultOption)
-        .addOption(relativeErrorOption);
+        .addOption(relativeErrorOption)
+        .addOption(threadsOption)
+        .addOption(intervalIterationOption);
 
     CommandLine commandLine = CliHelper.parse(options, args);
 
@@ -294,6 +350,17 @@ public final class ReachChecker {
     double precision = commandLine.hasOption(precisionOption.getLongOpt())
         ? Double.parseDouble(commandLine.getOptionValue(precisionOption.getLongOpt()))
         : DefaultInputValues.PRECISION;
+    int threads = commandLine.hasOption(threadsOption.getLongOpt())
+        ? Integer.parseInt(commandLine.getOptionValue(threadsOption.getLongOpt()))
+        : 1;
+    checkArgument(threads >= 1, "Invalid number of threads %s", threads);
+    long intervalIterationThreshold = commandLine.hasOption(intervalIterationOption.getLongOpt())
+        ? Long.parseLong(commandLine.getOptionValue(intervalIterationOption.getLongOpt()))
+        : 0;
+    UnboundedSamplerConfig config = UnboundedSamplerConfig.builder()
+        .threads(threads)
+        .intervalIterationThreshold(intervalIterationThreshold)
+        .build();
 
     SuccessorHeuristic heuristic = CliHelper.parseHeuristic(
         commandLine.getOptionValue(heuristicOption.getLongOpt()), SuccessorHeuristic.WEIGHTED);
@@ -346,7 +413,8 @@ public final class ReachChecker {
 
     List<Result<?, ?>> results = new ArrayList<>();
     for (PrismQuery<?> expression : prismQueries) {
-      Result<?, ?> result = solve(generator, expression, heuristic, precision);
+      Result<?, ?> result = solve(generator, modulesFile, prism, expression, heuristic, precision,
+          config);
       results.add(result);
     }
 
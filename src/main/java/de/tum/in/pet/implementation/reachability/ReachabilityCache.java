@@ -1,28 +1,42 @@
 package de.tum.in.pet.implementation.reachability;
 
-import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import java.util.Arrays;
 import java.util.function.IntPredicate;
 
 public class ReachabilityCache implements IntPredicate {
-  enum Type {
-    TARGET, NON_TARGET
-  }
+  private static final byte UNKNOWN = 0;
+  private static final byte TARGET = 1;
+  private static final byte NON_TARGET = 2;
 
-  private final Int2ObjectMap<Type> states = new Int2ObjectOpenHashMap<>();
+  // Indexed by the dense state ids, so a cached lookup is a single array read
+  private volatile byte[] states = new byte[1024];
   private final IntPredicate target;
 
   public ReachabilityCache(IntPredicate target) {
     this.target = target;
   }
 
-  private Type type(int state) {
-    assert !states.containsKey(state);
-    return target.test(state) ? Type.TARGET : Type.NON_TARGET;
+  // Lookups are lock-free, only computing (and publishing) a new entry is synchronized
+  private synchronized byte type(int state) {
+    byte[] states = this.states;
+    if (state >= states.length) {
+      states = Arrays.copyOf(states, Math.max(2 * states.length, state + 1));
+    } else if (states[state] != UNKNOWN) {
+      return states[state];
+    }
+    byte type = target.test(state) ? TARGET : NON_TARGET;
+    states[state] = type;
+    this.states = states;
+    return type;
   }
 
   @Override
   public boolean test(int state) {
-    return states.computeIfAbsent(state, this::type) == Type.TARGET;
+    byte[] states = this.states;
+    byte type = state < states.length ? states[state] : UNKNOWN;
+    if (type == UNKNOWN) {
+      type = type(state);
+    }
+    return type == TARGET;
   }
 }
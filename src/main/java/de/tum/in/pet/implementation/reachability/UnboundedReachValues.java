@@ -1,13 +1,16 @@
 package de.tum.in.pet.implementation.reachability;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static de.tum.in.probmodels.util.Util.isEqual;
 import static de.tum.in.probmodels.util.Util.isOne;
 import static de.tum.in.probmodels.util.Util.isZero;
+import static de.tum.in.probmodels.util.Util.lessOrEqual;
 
 import de.tum.in.pet.sampler.SuccessorHeuristic;
 import de.tum.in.pet.sampler.UnboundedValues;
 import de.tum.in.pet.util.SampleUtil;
 import de.tum.in.pet.values.Bounds;
+import de.tum.in.pet.values.BoundsStore;
 import de.tum.in.probmodels.model.Distribution;
 import it.unimi.dsi.fastutil.ints.*;
 
@@ -17,11 +20,16 @@ import java.util.function.IntToDoubleFunction;
 import java.util.function.ToDoubleFunction;
 
 public class UnboundedReachValues implements UnboundedValues {
-  protected final Int2ObjectMap<Bounds> bounds = new Int2ObjectOpenHashMap<>();
+  protected final BoundsStore bounds = BoundsStore.reach();
   protected final ValueUpdate update;
   protected final IntPredicate target; // Predicate to indicate if a given state is a target state
   protected final double precision;
   private final SuccessorHeuristic heuristic;
+  private final IntToDoubleFunction lowerBoundFunction = this::lowerBound;
+  private final IntToDoubleFunction upperBoundFunction = this::upperBound;
+  // Scratch space for the fused successor bounds computation, per thread since updates of
+  // different states may run concurrently
+  private final ThreadLocal<double[]> successorSums = ThreadLocal.withInitial(() -> new double[2]);
 
   public UnboundedReachValues(ValueUpdate update, IntPredicate target, double precision,
       SuccessorHeuristic heuristic) {
@@ -46,19 +54,11 @@ public class UnboundedReachValues implements UnboundedValues {
   }
 
   public double lowerBound(int state) {
-    if (target.test(state)) {
-      return 1.0d;
-    }
-    Bounds bounds = this.bounds.get(state);
-    return bounds == null ? 0.0d : bounds.lowerBound();
+    return target.test(state) ? 1.0d : bounds.lowerBound(state);
   }
 
   public double upperBound(int state) {
-    if (target.test(state)) {
-      return 1.0d;
-    }
-    Bounds bounds = this.bounds.get(state);
-    return bounds == null ? 1.0d : bounds.upperBound();
+    return target.test(state) ? 1.0d : bounds.upperBound(state);
   }
 
 
@@ -98,7 +98,7 @@ public class UnboundedReachValues implements UnboundedValues {
   @Override
   // collapse a set of state into a new representative. Updates the bounds of the representative and removes bounds for all other states
   public void collapse(int representative, List<Distribution> choices, IntSet collapsed) {
-    bounds.keySet().removeAll(collapsed);
+    bounds.removeAll(collapsed);
 
     if (isSmallestFixPoint()) {
       // Only collapse bottom components
@@ -116,25 +116,13 @@ public class UnboundedReachValues implements UnboundedValues {
 
   // Calculates new bounds according to an action. Lines 20, 21 in OnDemandVI in CAV'17 paper
   protected Bounds successorBounds(int state, Distribution distribution) {
-    double lower = 0.0d;
-    double upper = 0.0d;
-    double sum = 0.0d;
-    for (Int2DoubleMap.Entry entry : distribution) {
-      int successor = entry.getIntKey();
-      // It may be that the distribution has self loops, we want to avoid those
-      if (successor == state) {
-        continue;
-      }
-      Bounds successorBounds = bounds(successor);
-      double probability = entry.getDoubleValue();
-      sum += probability;
-      lower += successorBounds.lowerBound() * probability;
-      upper += successorBounds.upperBound() * probability;
-    }
-    if (sum == 0.0d) {
-      return bounds(state);
+    // It may be that the distribution has self loops, we want to avoid those
+    double[] sums = successorSums.get();
+    if (distribution.sumWeightedExceptJacobi(lowerBoundFunction, upperBoundFunction, state,
+        sums)) {
+      return Bounds.reach(sums[0], sums[1]);
     }
-    return Bounds.reach(lower / sum, upper / sum);
+    return bounds(state);
   }
 
   @Override
@@ -142,66 +130,62 @@ public class UnboundedReachValues implements UnboundedValues {
   public void update(int state, List<Distribution> choices) {
     assert update != ValueUpdate.UNIQUE_VALUE || choices.size() <= 1;
 
-    Bounds stateBounds = bounds(state);
-    if (isOne(stateBounds.lowerBound()) || isZero(stateBounds.upperBound())) {
+    double stateLowerBound = lowerBound(state);
+    double stateUpperBound = upperBound(state);
+    if (isOne(stateLowerBound) || isZero(stateUpperBound)) {
       return;
     }
     assert !target.test(state);
 
-    Bounds oldBounds;
-    Bounds newBounds;
+    double newLowerBound;
+    double newUpperBound;
     // If there are no choices from the state, it must have a zero value (u=0, l=0)
     if (choices.isEmpty()) {
-      newBounds = Bounds.reachZero();
-      oldBounds = bounds.put(state, newBounds);
-    }
-    else if (choices.size() == 1) {
-      newBounds = successorBounds(state, choices.get(0));
-      oldBounds = bounds.put(state, newBounds);
-    }
-    else {
-      double newLowerBound;
-      double newUpperBound;
-
-      // finds bounds for each distribution using successorBounds. The new upper and lower bound are either the maximum or minimum of all computed respective bounds
-
-      if (update == ValueUpdate.MAX_VALUE) {
-        newLowerBound = 0.0d;
-        newUpperBound = 0.0d;
-        for (Distribution distribution : choices) {
-          Bounds bounds = successorBounds(state, distribution);
-          double upperBound = bounds.upperBound();
-          if (upperBound > newUpperBound) {
-            newUpperBound = upperBound;
-          }
-          double lowerBound = bounds.lowerBound();
-          if (lowerBound > newLowerBound) {
-            newLowerBound = lowerBound;
-          }
+      newLowerBound = 0.0d;
+      newUpperBound = 0.0d;
+    } else {
+      // Computes the bounds of each choice directly on the distribution (skipping self loops) and
+      // keeps the maximum or minimum of them, without materializing intermediate Bounds.
+      boolean maximize = update != ValueUpdate.MIN_VALUE;
+      newLowerBound = maximize ? 0.0d : 1.0d;
+      newUpperBound = maximize ? 0.0d : 1.0d;
+      double[] sums = successorSums.get();
+      for (int i = 0; i < choices.size(); i++) {
+        double lowerBound;
+        double upperBound;
+        if (choices.get(i).sumWeightedExceptJacobi(lowerBoundFunction, upperBoundFunction, state,
+            sums)) {
+          lowerBound = sums[0];
+          upperBound = sums[1];
+        } else {
+          lowerBound = stateLowerBound;
+          upperBound = stateUpperBound;
         }
-      } else {
-        assert update == ValueUpdate.MIN_VALUE;
-
-        newUpperBound = 1.0d;
-        newLowerBound = 1.0d;
-        for (Distribution distribution : choices) {
-          Bounds bounds = successorBounds(state, distribution);
-          double upperBound = bounds.upperBound();
-          if (upperBound < newUpperBound) {
-            newUpperBound = upperBound;
-          }
-          double lowerBound = bounds.lowerBound();
-          if (lowerBound < newLowerBound) {
-            newLowerBound = lowerBound;
-          }
+        if (maximize) {
+          newLowerBound = Math.max(newLowerBound, lowerBound);
+          newUpperBound = Math.max(newUpperBound, upperBound);
+        } else {
+          newLowerBound = Math.min(newLowerBound, lowerBound);
+          newUpperBound = Math.min(newUpperBound, upperBound);
         }
       }
+      if (isEqual(newLowerBound, newUpperBound)) {
+        newUpperBound = newLowerBound;
+      }
+    }
+
+    assert newLowerBound <= newUpperBound;
+    assert lessOrEqual(stateLowerBound, newLowerBound)
+        && lessOrEqual(newUpperBound, stateUpperBound);
+    bounds.tighten(state, newLowerBound, newUpperBound);
+  }
 
-      assert newLowerBound <= newUpperBound;
-      newBounds = Bounds.of(newLowerBound, newUpperBound);
-      oldBounds = bounds.put(state, newBounds);
+  @Override
+  public void tighten(int state, double lowerBound, double upperBound) {
+    if (target.test(state)) {
+      return;
     }
-    assert oldBounds == null || oldBounds.contains(newBounds);
+    bounds.tighten(state, lowerBound, upperBound);
   }
 
   @Override
@@ -211,6 +195,7 @@ public class UnboundedReachValues implements UnboundedValues {
 
   @Override
   public void explored(int state) {
-    // empty
+    // Reserve space so that concurrent updates of this state never need to grow the store
+    bounds.reserve(state);
   }
 }
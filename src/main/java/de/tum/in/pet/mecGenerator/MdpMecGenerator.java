@@ -23,7 +23,16 @@ public class MdpMecGenerator {
     // For each action, we can have up to 4 transitions
     private static final int NUM_TRANSITIONS_BOUND = 4;
 
-    private final Random random = new Random();
+    private final Random random;
+
+    public MdpMecGenerator() {
+        this.random = new Random();
+    }
+
+    // Generates the same MECs for the same seed, e.g. for benchmarks
+    public MdpMecGenerator(long seed) {
+        this.random = new Random(seed);
+    }
 
     public MarkovDecisionProcess createMec(int numStates) {
         initialiseStateVariables(numStates);
@@ -58,7 +67,7 @@ public class MdpMecGenerator {
     // For an action, all of its transitions will have equal probability (for convenience)
     private Action getRandomAction(int state, Object actionLabel) {
         // To pick n random successors, we shuffle the states and pick the first n elements
-        Collections.shuffle(statesList);
+        Collections.shuffle(statesList, random);
 
         // We randomly pick the number of successors
         int numSuccessors = getRandomNumberInRange(1, NUM_TRANSITIONS_BOUND);
@@ -1,5 +1,8 @@
 package de.tum.in.pet.sampler;
 
+import static de.tum.in.probmodels.util.Util.isOne;
+import static de.tum.in.probmodels.util.Util.isZero;
+
 import de.tum.in.pet.values.Bounds;
 import de.tum.in.probmodels.explorer.Explorer;
 import de.tum.in.probmodels.model.Distribution;
@@ -8,11 +11,15 @@ import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntIterator;
 import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.ints.IntStack;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 import prism.PrismException;
 
 public class BoundedSampler<S, M extends Model> implements Iterator<S, M> {
+  // Number of states updated by one task of a step in computeExactBounds
+  private static final int CHUNK_SIZE = 4096;
+
   private final Explorer<S, M> explorer;
   private final BoundedValues values;
   private final BoundedStepFunction function;
@@ -141,32 +148,70 @@ public class BoundedSampler<S, M extends Model> implements Iterator<S, M> {
     M model = explorer.model();
     int numStates = model.getNumStates();
 
-    Bounds[] init = new Bounds[numStates];
-    Arrays.setAll(init, s -> values.bounds(s, 0));
+    double[] lower = new double[numStates];
+    double[] upper = new double[numStates];
+    for (int state = 0; state < numStates; state++) {
+      Bounds bounds = values.bounds(state, 0);
+      lower[state] = bounds.lowerBound();
+      upper[state] = bounds.upperBound();
+    }
 
-    Bounds[] vect = init;
-    Bounds[] result = vect.clone();
+    // The values are monotone in the number of remaining steps. States which surely reach the
+    // target without any step or surely do not reach it with all steps thus have the same exact
+    // value for every step. They are not recomputed, their bounds stay the initial ones in both
+    // vectors and are only written back for the stored steps.
+    IntArrayList updatedStates = new IntArrayList();
+    List<List<Distribution>> updatedChoices = new ArrayList<>();
+    IntIterator iterator = explorer.exploredStates().iterator();
+    while (iterator.hasNext()) {
+      int state = iterator.nextInt();
+      if (isOne(lower[state]) || isZero(values.bounds(state, stepBound).upperBound())) {
+        continue;
+      }
+      updatedStates.add(state);
+      updatedChoices.add(explorer.getChoices(state));
+    }
+    int[] states = updatedStates.toIntArray();
+    int chunks = (states.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
 
+    double[] nextLower = lower.clone();
+    double[] nextUpper = upper.clone();
     for (int remaining = 1; remaining <= stepBound; remaining++) {
-      IntIterator iterator = explorer.exploredStates().iterator();
-      while (iterator.hasNext()) {
-        int state = iterator.nextInt();
-
-        Bounds bounds = function.step(state, remaining, explorer.getChoices(state), vect);
-        assert values.bounds(state, remaining).contains(bounds);
-        result[state] = bounds;
+      int steps = remaining;
+      double[] currentLower = lower;
+      double[] currentUpper = upper;
+      double[] resultLower = nextLower;
+      double[] resultUpper = nextUpper;
+      IntStream tasks = IntStream.range(0, chunks);
+      if (chunks > 1) {
+        tasks = tasks.parallel();
       }
+      tasks.forEach(chunk -> {
+        double[] result = new double[2];
+        int to = Math.min(states.length, (chunk + 1) * CHUNK_SIZE);
+        for (int i = chunk * CHUNK_SIZE; i < to; i++) {
+          int state = states[i];
+          function.step(state, steps, updatedChoices.get(i), currentLower, currentUpper, result);
+          assert values.bounds(state, steps).contains(Bounds.reach(result[0], result[1]));
+          resultLower[state] = result[0];
+          resultUpper[state] = result[1];
+        }
+      });
+
       if (values.stores(remaining)) {
         IntIterator resultIterator = explorer.exploredStates().iterator();
         while (resultIterator.hasNext()) {
           int state = resultIterator.nextInt();
-          values.update(state, remaining, result[state]);
+          values.update(state, remaining, Bounds.reach(nextLower[state], nextUpper[state]));
         }
       }
 
-      Bounds[] swap = vect;
-      vect = result;
-      result = swap;
+      double[] swap = lower;
+      lower = nextLower;
+      nextLower = swap;
+      swap = upper;
+      upper = nextUpper;
+      nextUpper = swap;
     }
   }
 }
@@ -1,10 +1,12 @@
 package de.tum.in.pet.sampler;
 
-import de.tum.in.pet.values.Bounds;
 import de.tum.in.probmodels.model.Distribution;
 import java.util.List;
 
 @FunctionalInterface
 public interface BoundedStepFunction {
-  Bounds step(int state, int remainingSteps, List<Distribution> choices, Bounds[] successorBounds);
+  // Computes the bounds of the state from the bounds of all states with one step less and stores
+  // the lower and upper bound in result[0] and result[1].
+  void step(int state, int remainingSteps, List<Distribution> choices, double[] lowerBounds,
+      double[] upperBounds, double[] result);
 }
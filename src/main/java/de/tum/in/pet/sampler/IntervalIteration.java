@@ -0,0 +1,230 @@
+package de.tum.in.pet.sampler;
+
+import static de.tum.in.probmodels.util.Util.isEqual;
+import static de.tum.in.probmodels.util.Util.isOne;
+import static de.tum.in.probmodels.util.Util.isZero;
+
+import de.tum.in.pet.values.Bounds;
+import de.tum.in.probmodels.model.CollapseModel;
+import de.tum.in.probmodels.model.Distribution;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.Int2DoubleMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntCollection;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Sound interval iteration on the explored part of a partially explored model. Starting from the
+ * current bounds, the lower and upper bounds of all explored states are updated together until they
+ * do not change anymore. Since the update is monotone, the bounds stay sound even if the model
+ * contains end components which have not been collapsed yet, only the upper bounds in these
+ * components do not converge.
+ *
+ * <p>The model is copied into dense arrays once and every sweep updates all states from the values
+ * of the previous sweep (Jacobi style), so the states can be updated in parallel. Unexplored states
+ * and states with a determined value keep their bounds.</p>
+ */
+final class IntervalIteration {
+  // Number of states updated by one task of a sweep
+  private static final int CHUNK_SIZE = 4096;
+  private static final int MAX_SWEEPS = 1000;
+  // The iteration stops once no bound changes by more than this during a sweep
+  private static final double CONVERGENCE_THRESHOLD = 1.0e-8;
+
+  private final boolean minimize;
+  // The explored states with an undetermined value. State states[i] has the bounds lower[i] and
+  // upper[i], the bounds of all other states referenced by transitions are stored after them.
+  private final int[] states;
+  // The choices of states[i] are choiceOffsets[i] (inclusive) to choiceOffsets[i + 1] (exclusive),
+  // the transitions of choice c are transitionOffsets[c] to transitionOffsets[c + 1]. Self loops
+  // are removed and the remaining probabilities rescaled, as in UnboundedValues#update.
+  private final int[] choiceOffsets;
+  private final int[] transitionOffsets;
+  private final int[] successors;
+  private final double[] probabilities;
+
+  private double[] lower;
+  private double[] upper;
+  private double[] nextLower;
+  private double[] nextUpper;
+
+  private IntervalIteration(IntCollection exploredStates, CollapseModel<?> model,
+      UnboundedValues values) {
+    this.minimize = values.isSmallestFixPoint();
+
+    IntArrayList variables = new IntArrayList();
+    exploredStates.forEach((int state) -> {
+      if (!model.isRemoved(state)) {
+        Bounds bounds = values.bounds(state);
+        if (!isOne(bounds.lowerBound()) && !isZero(bounds.upperBound())) {
+          variables.add(state);
+        }
+      }
+    });
+    states = variables.toIntArray();
+
+    // The collapse view does not count removed states, but state ids range over the whole model
+    int[] index = new int[model.getModel().getNumStates()];
+    Arrays.fill(index, -1);
+    DoubleArrayList lowerValues = new DoubleArrayList(states.length);
+    DoubleArrayList upperValues = new DoubleArrayList(states.length);
+    for (int i = 0; i < states.length; i++) {
+      index[states[i]] = i;
+      Bounds bounds = values.bounds(states[i]);
+      lowerValues.add(bounds.lowerBound());
+      upperValues.add(bounds.upperBound());
+    }
+
+    choiceOffsets = new int[states.length + 1];
+    IntArrayList transitionOffsetList = new IntArrayList();
+    IntArrayList successorList = new IntArrayList();
+    DoubleArrayList probabilityList = new DoubleArrayList();
+    transitionOffsetList.add(0);
+    for (int i = 0; i < states.length; i++) {
+      int state = states[i];
+      List<Distribution> choices = model.getChoices(state);
+      for (Distribution distribution : choices) {
+        int first = successorList.size();
+        double weight = 0.0d;
+        for (Int2DoubleMap.Entry entry : distribution) {
+          int successor = entry.getIntKey();
+          if (successor == state) {
+            continue;
+          }
+          if (index[successor] == -1) {
+            // Fixed bounds, either unexplored or determined
+            index[successor] = lowerValues.size();
+            Bounds bounds = values.bounds(successor);
+            lowerValues.add(bounds.lowerBound());
+            upperValues.add(bounds.upperBound());
+          }
+          successorList.add(index[successor]);
+          probabilityList.add(entry.getDoubleValue());
+          weight += entry.getDoubleValue();
+        }
+        for (int transition = first; transition < successorList.size(); transition++) {
+          probabilityList.set(transition, probabilityList.getDouble(transition) / weight);
+        }
+        transitionOffsetList.add(successorList.size());
+      }
+      choiceOffsets[i + 1] = transitionOffsetList.size() - 1;
+    }
+    transitionOffsets = transitionOffsetList.toIntArray();
+    successors = successorList.toIntArray();
+    probabilities = probabilityList.toDoubleArray();
+
+    lower = lowerValues.toDoubleArray();
+    upper = upperValues.toDoubleArray();
+    // Bounds of the fixed states are never written, hence copy them once
+    nextLower = lower.clone();
+    nextUpper = upper.clone();
+  }
+
+  /**
+   * Runs interval iteration on the given explored states of the model and tightens the bounds
+   * stored in the values accordingly. Returns the number of performed sweeps.
+   */
+  static int solve(IntCollection exploredStates, CollapseModel<?> model,
+      UnboundedValues values) {
+    IntervalIteration iteration = new IntervalIteration(exploredStates, model, values);
+    int sweeps = iteration.iterate();
+    iteration.writeBack(values);
+    return sweeps;
+  }
+
+  private int iterate() {
+    int chunks = (states.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    int sweeps = 0;
+    while (sweeps < MAX_SWEEPS) {
+      sweeps += 1;
+      IntStream tasks = IntStream.range(0, chunks);
+      if (chunks > 1) {
+        tasks = tasks.parallel();
+      }
+      double change = tasks.mapToDouble(chunk ->
+          sweep(chunk * CHUNK_SIZE, Math.min(states.length, (chunk + 1) * CHUNK_SIZE))).max()
+          .orElse(0.0d);
+
+      double[] swap = lower;
+      lower = nextLower;
+      nextLower = swap;
+      swap = upper;
+      upper = nextUpper;
+      nextUpper = swap;
+
+      if (change <= CONVERGENCE_THRESHOLD) {
+        break;
+      }
+    }
+    return sweeps;
+  }
+
+  // Updates the states with index from (inclusive) to (exclusive) and returns the largest change
+  private double sweep(int from, int to) {
+    double change = 0.0d;
+    for (int i = from; i < to; i++) {
+      double stateLower = lower[i];
+      double stateUpper = upper[i];
+      int firstChoice = choiceOffsets[i];
+      int lastChoice = choiceOffsets[i + 1];
+
+      double newLower;
+      double newUpper;
+      if (firstChoice == lastChoice) {
+        // No choices, the state must have a zero value
+        newLower = 0.0d;
+        newUpper = 0.0d;
+      } else {
+        newLower = minimize ? 1.0d : 0.0d;
+        newUpper = minimize ? 1.0d : 0.0d;
+        for (int choice = firstChoice; choice < lastChoice; choice++) {
+          int firstTransition = transitionOffsets[choice];
+          int lastTransition = transitionOffsets[choice + 1];
+          double choiceLower;
+          double choiceUpper;
+          if (firstTransition == lastTransition) {
+            // Only a self loop
+            choiceLower = stateLower;
+            choiceUpper = stateUpper;
+          } else {
+            choiceLower = 0.0d;
+            choiceUpper = 0.0d;
+            for (int transition = firstTransition; transition < lastTransition; transition++) {
+              int successor = successors[transition];
+              double probability = probabilities[transition];
+              choiceLower += probability * lower[successor];
+              choiceUpper += probability * upper[successor];
+            }
+          }
+          if (minimize) {
+            newLower = Math.min(newLower, choiceLower);
+            newUpper = Math.min(newUpper, choiceUpper);
+          } else {
+            newLower = Math.max(newLower, choiceLower);
+            newUpper = Math.max(newUpper, choiceUpper);
+          }
+        }
+        // Bounds only ever get tighter, also with rounding errors
+        newLower = Math.max(newLower, stateLower);
+        newUpper = Math.min(newUpper, stateUpper);
+        if (isEqual(newLower, newUpper)) {
+          newUpper = newLower;
+        }
+      }
+      assert newLower <= newUpper;
+
+      nextLower[i] = newLower;
+      nextUpper[i] = newUpper;
+      change = Math.max(change, Math.max(newLower - stateLower, stateUpper - newUpper));
+    }
+    return change;
+  }
+
+  private void writeBack(UnboundedValues values) {
+    for (int i = 0; i < states.length; i++) {
+      values.tighten(states[i], lower[i], upper[i]);
+    }
+  }
+}
@@ -1,8 +1,11 @@
 package de.tum.in.pet.sampler;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import de.tum.in.naturals.set.NatBitSet;
 import de.tum.in.naturals.set.NatBitSets;
 import de.tum.in.pet.values.Bounds;
+import de.tum.in.probmodels.explorer.ConcurrentExplorer;
 import de.tum.in.probmodels.explorer.Explorer;
 import de.tum.in.probmodels.graph.ComponentAnalyser;
 import de.tum.in.probmodels.graph.SccDecomposition;
@@ -18,6 +21,12 @@ import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.ints.IntStack;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -35,25 +44,37 @@ public class UnboundedSampler<S, M extends Model> implements Iterator<S, M> {
   private final NatBitSet statesInComponents = NatBitSets.set();
   private final IntSet sampledStates = new IntOpenHashSet();
 
-  private long collapseThreshold;
-  private int loopCount = 0;
-  private boolean newStatesSinceCollapse = false;
+  // Sampling workers hold the read lock while following a path, including the exploration of new
+  // states, which the concurrent explorer handles. Only collapsing components and interval
+  // iteration take the write lock, i.e. stop the world.
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final AtomicLong loopCount = new AtomicLong();
+  private volatile long collapseThreshold;
+  private volatile boolean newStatesSinceCollapse = false;
+  private final AtomicLong sampleCount = new AtomicLong();
+  private volatile long intervalIterationThreshold;
+  private volatile boolean aborted = false;
 
   private final int maxBacktrackPerSample;
   private final int maxExploresPerSample;
   private final CollapseMethod collapseMethod;
+  private final int threads;
 
   public UnboundedSampler(Explorer<S, M> explorer, ComponentAnalyser analyser,
       UnboundedValues values, UnboundedSamplerConfig config) {
+    checkArgument(config.threads() == 1 || explorer instanceof ConcurrentExplorer,
+        "Sampling with several threads requires a concurrent explorer, got %s", explorer);
     this.explorer = explorer;
     this.collapseModel = new CollapseView<>(explorer.model());
     this.analyser = analyser;
     this.values = values;
     this.collapseThreshold = config.initialCollapseThreshold();
+    this.intervalIterationThreshold = config.intervalIterationThreshold();
 
     maxBacktrackPerSample = config.maxBacktrackPerSample();
     maxExploresPerSample = config.maxExploresPerSample();
     collapseMethod = config.collapseMethod();
+    threads = config.threads();
   }
 
   @Override
@@ -64,7 +85,7 @@ public class UnboundedSampler<S, M extends Model> implements Iterator<S, M> {
   @Override
   public AnnotatedModel<M> model() {
     IntSet exploredStates = new IntOpenHashSet(explorer.exploredStates());
-    exploredStates.removeIf((int state) -> values.isUnknown(collapseModel.representative(state)));
+    exploredStates.removeIf((int state) -> values.isUnknown(representative(state)));
     return new AnnotatedModel<>(explorer.model(), explorer::getState, exploredStates);
   }
 
@@ -75,23 +96,93 @@ public class UnboundedSampler<S, M extends Model> implements Iterator<S, M> {
 
   @Override
   public void run() throws PrismException {
-    long count = 0;
+    if (threads == 1) {
+      sampleUntilSolved();
+      return;
+    }
+
+    logger.log(Level.INFO, "Sampling with {0} threads", threads);
+    // States explored before sampling started, e.g. the initial states, did not go through
+    // explore(), so prepare them as well before the workers start
+    explorer.exploredStates().forEach((int state) -> {
+      if (!collapseModel.isRemoved(state)) {
+        values.explored(state);
+      }
+    });
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> workers = new ArrayList<>(threads);
+      for (int i = 0; i < threads; i++) {
+        workers.add(executor.submit(() -> {
+          try {
+            sampleUntilSolved();
+          } catch (PrismException | RuntimeException e) {
+            aborted = true;
+            throw e;
+          }
+          return null;
+        }));
+      }
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PrismException("Interrupted while sampling");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof PrismException) {
+        throw (PrismException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  // Samples paths from each initial state until its value is determined. Executed by each worker.
+  private void sampleUntilSolved() throws PrismException {
     for (int initialState : explorer.initialStates()) {
-      // The representative of the initial states might be a different state
-      int representative = collapseModel.representative(initialState);
-      while (!values.isSolved(representative)) {
-        count += 1;
-        if (sample(representative)) {
-          // If MECs have been merged, update the representative (it might have changed)
-          representative = collapseModel.representative(initialState);
-          assert explorer.isExploredState(representative)
-              && collapseModel.representative(representative)
-              == collapseModel.representative(initialState);
+      while (!aborted) {
+        boolean collapse;
+        boolean solve;
+        lock.readLock().lock();
+        try {
+          // The representative of the initial states might be a different state, e.g. if MECs
+          // have been merged since the last sample
+          int representative = representative(initialState);
+          if (values.isSolved(representative)) {
+            break;
+          }
+          collapse = sample(representative);
+          solve = intervalIterationThreshold > 0
+              && sampleCount.incrementAndGet() > intervalIterationThreshold;
+        } finally {
+          lock.readLock().unlock();
+        }
+        if (collapse || solve) {
+          lock.writeLock().lock();
+          try {
+            if (collapse) {
+              collapseIfDue();
+            }
+            if (solve) {
+              solveIfDue();
+            }
+          } finally {
+            lock.writeLock().unlock();
+          }
         }
       }
     }
   }
 
+  // Samples a single path and propagates values backwards along it. Returns true if component
+  // collapsing is due. Must be called while holding the read lock.
   private boolean sample(int initialState) throws PrismException {
     assert !values.isSolved(initialState);
 
@@ -108,7 +199,9 @@ public class UnboundedSampler<S, M extends Model> implements Iterator<S, M> {
 
       visitStack.push(currentState);
       if (visitedStateSet.add(currentState)) {
-        sampledStates.add(currentState);
+        synchronized (sampledStates) {
+          sampledStates.add(currentState);
+        }
       } else {
         stateRevisit += 1;
       }
@@ -149,46 +242,57 @@ public class UnboundedSampler<S, M extends Model> implements Iterator<S, M> {
       }
     }
 
-    // Handle end components
-    if (stateRevisit > 5) {
-      loopCount += 1;
-      // We looped quite often - chances for this are high if there is a MEC, otherwise the
-      // sampling probabilities would decrease
-      if (loopCount > collapseThreshold) {
-        // Search for fix points in the model
-        // TODO Only search on frequently visited states?
-        boolean anythingChanged = handleComponents();
-
-        loopCount = 0;
-        // Some arbitrary increasing number - collapsing is expensive
-        collapseThreshold += explorer.exploredStates().size();
-
-        if (anythingChanged) {
-          // The path could now contain invalid states (i.e. some which have been merged), we have
-          // to sample again.
-          visitedStates.clear();
-
-          return true;
-        }
-      }
-    }
-
     // Propagate values backwards along the path
     while (!visitStack.isEmpty()) {
       int state = visitStack.popInt();
       values.update(state, choices(state));
     }
 
-    return false;
+    // Handle end components
+    // We looped quite often - chances for this are high if there is a MEC, otherwise the
+    // sampling probabilities would decrease
+    return stateRevisit > 5 && loopCount.incrementAndGet() > collapseThreshold;
   }
 
+  // Explores the state concurrently to the other workers. If another worker is exploring the same
+  // state, the explorer waits for it. Must be called while holding the read lock, so that no
+  // components are collapsed in the meantime.
   private void explore(int state) throws PrismException {
-    assert !explorer.isExploredState(state);
     newStatesSinceCollapse = true;
     explorer.exploreState(state);
     values.explored(state);
   }
 
+  // Must be called while holding the write lock.
+  private void collapseIfDue() {
+    if (loopCount.get() <= collapseThreshold) {
+      // Another worker already collapsed
+      return;
+    }
+    // Search for fix points in the model
+    // TODO Only search on frequently visited states?
+    handleComponents();
+
+    loopCount.set(0);
+    // Some arbitrary increasing number - collapsing is expensive
+    collapseThreshold += explorer.exploredStates().size();
+  }
+
+  // Runs interval iteration on the whole explored model, tightening the bounds of states which
+  // sampling only rarely reaches. Must be called while holding the write lock.
+  private void solveIfDue() {
+    if (sampleCount.get() <= intervalIterationThreshold) {
+      // Another worker already solved
+      return;
+    }
+    int sweeps = IntervalIteration.solve(explorer.exploredStates(), collapseModel, values);
+    logger.log(Level.FINE, "Interval iteration finished after {0} sweeps", sweeps);
+
+    sampleCount.set(0);
+    // As for collapsing, the cost grows with the explored model
+    intervalIterationThreshold += explorer.exploredStates().size();
+  }
+
   private boolean handleComponents() {
     if (!newStatesSinceCollapse) {
       return false;
@@ -260,8 +364,25 @@ public class UnboundedSampler<S, M extends Model> implements Iterator<S, M> {
     return true;
   }
 
+  // The collapse view fills its cache and compresses its union-find on lookups, and it reads the
+  // underlying model, which other workers extend concurrently. With multiple threads, lookups hence
+  // synchronize on the model, as the concurrent explorer does for its writes.
   private List<Distribution> choices(int state) {
     assert explorer.isExploredState(state);
-    return collapseModel.getChoices(state);
+    if (threads == 1) {
+      return collapseModel.getChoices(state);
+    }
+    synchronized (explorer.model()) {
+      return collapseModel.getChoices(state);
+    }
+  }
+
+  private int representative(int state) {
+    if (threads == 1) {
+      return collapseModel.representative(state);
+    }
+    synchronized (explorer.model()) {
+      return collapseModel.representative(state);
+    }
   }
 }
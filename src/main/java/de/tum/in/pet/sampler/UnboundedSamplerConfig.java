@@ -1,5 +1,7 @@
 package de.tum.in.pet.sampler;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import org.immutables.value.Value;
 
 @Value.Immutable(builder = true)
@@ -35,6 +37,26 @@ public abstract class UnboundedSamplerConfig {
     return CollapseMethod.ONLY_SAMPLED_STATES;
   }
 
+  // Number of workers sampling paths concurrently
+  @Value.Default
+  public int threads() {
+    return 1;
+  }
+
+  // Number of samples after which interval iteration is run on the explored model for the first
+  // time, zero disables it. Afterwards, the number grows with the size of the explored model.
+  @Value.Default
+  public long intervalIterationThreshold() {
+    return 0;
+  }
+
+  @Value.Check
+  protected void check() {
+    checkArgument(threads() >= 1, "Need at least one thread, got %s", threads());
+    checkArgument(intervalIterationThreshold() >= 0,
+        "Invalid interval iteration threshold %s", intervalIterationThreshold());
+  }
+
   public static ImmutableUnboundedSamplerConfig.Builder builder() {
     return ImmutableUnboundedSamplerConfig.builder();
   }
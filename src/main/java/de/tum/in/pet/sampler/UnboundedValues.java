@@ -20,6 +20,9 @@ public interface UnboundedValues {
 
   void update(int state, List<Distribution> choices);
 
+  // Intersects the bounds of the state with the given ones, e.g. bounds computed by a solver
+  void tighten(int state, double lowerBound, double upperBound);
+
   void explored(int state);
 
   boolean isSmallestFixPoint();
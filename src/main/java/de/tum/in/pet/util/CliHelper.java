@@ -2,6 +2,7 @@ package de.tum.in.pet.util;
 
 import de.tum.in.pet.implementation.meanPayoff.DeltaTCalculationMethod;
 import de.tum.in.pet.implementation.meanPayoff.SimulateMec;
+import de.tum.in.pet.implementation.meanPayoff.UpdatePropagation;
 import de.tum.in.pet.implementation.reachability.UpdateMethod;
 import de.tum.in.pet.sampler.SuccessorHeuristic;
 import java.util.Arrays;
@@ -122,6 +123,24 @@ public final class CliHelper {
     }
   }
 
+  public static UpdatePropagation parseUpdatePropagation(String optionString, UpdatePropagation defaultValue) {
+    if (optionString == null) {
+      return defaultValue;
+    }
+
+    try {
+      return UpdatePropagation.valueOf(optionString);
+    } catch (IllegalArgumentException e) {
+      logger.log(Level.FINE, "Failed to parse update propagation", e);
+      String values = Arrays.stream(UpdatePropagation.values())
+              .map(Object::toString)
+              .collect(Collectors.joining(", "));
+      System.out.println("Unknown update propagation value " + optionString + ". Possible values are: " + values);
+      System.exit(1);
+      throw new AssertionError(e);
+    }
+  }
+
   public static CommandLine parse(Options options, String[] args) {
     HelpFormatter formatter = new HelpFormatter();
     CommandLineParser cliParser = new DefaultParser();
@@ -2,7 +2,7 @@ package de.tum.in.pet.util;
 
 import de.tum.in.naturals.set.NatBitSet;
 import de.tum.in.pet.implementation.meanPayoff.BoundedMecQuotient;
-import de.tum.in.probmodels.explorer.BlackExplorer;
+import de.tum.in.probmodels.explorer.TransitionCounts;
 import de.tum.in.probmodels.model.Action;
 import de.tum.in.probmodels.model.Distribution;
 import it.unimi.dsi.fastutil.ints.*;
@@ -23,13 +23,13 @@ public class ErrorProbabilityCalculator {
 
     private final Int2ObjectMap<ObjectArrayList<Action>> originalStateActions;
     private final Int2ObjectFunction<List<Action>> getStateActions;
-    private final Int2ObjectMap<ObjectArrayList<Int2LongMap>> stateTransitionCounts;
+    private final TransitionCounts stateTransitionCounts;
     private final Int2IntMap stateToMecMap;
     private final List<NatBitSet> mecs;
 
     public ErrorProbabilityCalculator(Int2ObjectFunction<List<Action>> getStateActions,
                                       Int2ObjectMap<ObjectArrayList<Action>> originalStateActions,
-                                      Int2ObjectMap<ObjectArrayList<Int2LongMap>> stateTransitionCounts,
+                                      TransitionCounts stateTransitionCounts,
                                       Int2IntMap stateToMecMap,
                                       List<NatBitSet> mecs) {
         this.getStateActions = getStateActions;
@@ -122,15 +122,9 @@ public class ErrorProbabilityCalculator {
 
     // Returns the number of times, this state, action has been visited.
     private long getStateActionVisitCount(int state, int actionIndex) {
-        // This map contains the number of visits for each successor of the action. We sum them up to find how many number
-        // times this state action has been visited.
-        Int2LongMap actionSuccessorsVisitCounts = stateTransitionCounts.get(state).get(actionIndex);
-
-
-        return actionSuccessorsVisitCounts.values()
-                .stream()
-                .mapToLong(Long::longValue)
-                .sum();
+        // The counts keep the sum of the visits of all successors of the action, i.e. how many times this state action has
+        // been visited.
+        return stateTransitionCounts.total(state, actionIndex);
     }
 
     private double successorNotVisited(double successorProbability, long numVisits) {
@@ -8,8 +8,8 @@ import de.tum.in.probmodels.explorer.Explorers;
 import de.tum.in.probmodels.explorer.InformationLevel;
 import de.tum.in.probmodels.generator.Generator;
 import de.tum.in.probmodels.generator.MdpGenerator;
+import de.tum.in.probmodels.model.CompactMarkovDecisionProcess;
 import de.tum.in.probmodels.model.Distribution;
-import de.tum.in.probmodels.model.MarkovDecisionProcess;
 import de.tum.in.probmodels.util.PrismHelper;
 import it.unimi.dsi.fastutil.ints.IntArraySet;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
@@ -113,7 +113,7 @@ public class MinProbabilityCalculator {
 
   public static double solveMdp(ModelGenerator prismGenerator){
 
-    MarkovDecisionProcess partialModel = new MarkovDecisionProcess();
+    CompactMarkovDecisionProcess partialModel = new CompactMarkovDecisionProcess();
     Generator<State> generator = new MdpGenerator(prismGenerator);
 
     var explorer = Explorers.getExplorer(partialModel, generator,
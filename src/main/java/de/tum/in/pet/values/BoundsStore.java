@@ -0,0 +1,238 @@
+package de.tum.in.pet.values;
+
+import de.tum.in.naturals.set.NatBitSet;
+import de.tum.in.naturals.set.NatBitSets;
+import it.unimi.dsi.fastutil.ints.IntCollection;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Growable store of lower and upper bounds, indexed by the dense state ids of the explored model.
+ * States without stored bounds report the default bounds given on construction. Contrary to a map
+ * of {@link Bounds} objects, storing a bound neither allocates nor hashes; {@link #get(int)}
+ * provides the usual {@link Bounds} view where needed.
+ *
+ * <p>Absent entries are marked by NaN, so entries of different states are independent. The bounds
+ * are stored in chunks which never move once allocated, growing only copies the chunk directory.
+ * Hence {@link #reserve(int)} and {@link #tighten(int, double, double)} may be called concurrently
+ * with reads and with each other, a concurrent reserve never loses a tightened bound. All other
+ * modifications require exclusive access.</p>
+ *
+ * <p>The states with stored bounds are tracked separately whenever an entry is initialized or
+ * removed, so {@link #states()} and {@link #size()} do not scan the reserved capacity.</p>
+ */
+public final class BoundsStore {
+  private static final int CHUNK_BITS = 10;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(double[].class);
+
+  private final double defaultLower;
+  private final double defaultUpper;
+  // Chunk directory, only replaced (never modified) under the lock of this object. The bounds of a
+  // state are at index 2 * offset (lower) and 2 * offset + 1 (upper) of its chunk.
+  private volatile double[][] chunks;
+  // The states with stored bounds and their number, guarded by the set, since tighten may
+  // initialize entries concurrently
+  private final NatBitSet stored;
+  private int size;
+
+  public BoundsStore(double defaultLower, double defaultUpper) {
+    this(defaultLower, defaultUpper, new double[][] {newChunk()}, NatBitSets.set(), 0);
+  }
+
+  private BoundsStore(double defaultLower, double defaultUpper, double[][] chunks,
+      NatBitSet stored, int size) {
+    assert defaultLower <= defaultUpper;
+    this.defaultLower = defaultLower;
+    this.defaultUpper = defaultUpper;
+    this.chunks = chunks;
+    this.stored = stored;
+    this.size = size;
+  }
+
+  // Creates a store with the reachability defaults [0, 1]
+  public static BoundsStore reach() {
+    return new BoundsStore(0.0d, 1.0d);
+  }
+
+  private static double[] newChunk() {
+    double[] chunk = new double[2 * CHUNK_SIZE];
+    Arrays.fill(chunk, Double.NaN);
+    return chunk;
+  }
+
+  private static int index(int state) {
+    return 2 * (state & CHUNK_MASK);
+  }
+
+  // Returns the chunk of the state or null if it has not been reserved
+  private double[] chunk(int state) {
+    double[][] chunks = this.chunks;
+    int chunk = state >>> CHUNK_BITS;
+    return chunk < chunks.length ? chunks[chunk] : null;
+  }
+
+  // Ensures that bounds of the given state can be stored without growing the store.
+  public void reserve(int state) {
+    if (chunk(state) == null) {
+      grow(state >>> CHUNK_BITS);
+    }
+  }
+
+  private synchronized void grow(int chunk) {
+    double[][] chunks = this.chunks;
+    if (chunk < chunks.length) {
+      // Another thread grew the store in the meantime
+      return;
+    }
+    double[][] newChunks = Arrays.copyOf(chunks, Math.max(2 * chunks.length, chunk + 1));
+    for (int i = chunks.length; i < newChunks.length; i++) {
+      newChunks[i] = newChunk();
+    }
+    this.chunks = newChunks;
+  }
+
+  public boolean contains(int state) {
+    double[] chunk = chunk(state);
+    return chunk != null && !Double.isNaN(chunk[index(state)]);
+  }
+
+  public double lowerBound(int state) {
+    double[] chunk = chunk(state);
+    if (chunk == null) {
+      return defaultLower;
+    }
+    double value = chunk[index(state)];
+    return Double.isNaN(value) ? defaultLower : value;
+  }
+
+  public double upperBound(int state) {
+    double[] chunk = chunk(state);
+    if (chunk == null) {
+      return defaultUpper;
+    }
+    double value = chunk[index(state) + 1];
+    return Double.isNaN(value) ? defaultUpper : value;
+  }
+
+  // Returns the stored bounds as reachability bounds or null if no bounds are stored.
+  public Bounds get(int state) {
+    return contains(state) ? Bounds.reach(lowerBound(state), upperBound(state)) : null;
+  }
+
+  public Bounds getOrDefault(int state, Bounds defaultBounds) {
+    return contains(state) ? Bounds.reach(lowerBound(state), upperBound(state)) : defaultBounds;
+  }
+
+  public void set(int state, double lowerBound, double upperBound) {
+    assert lowerBound <= upperBound : String.format("%s > %s", lowerBound, upperBound);
+    reserve(state);
+    double[] chunk = chunk(state);
+    int index = index(state);
+    if (Double.isNaN(chunk[index])) {
+      added(state);
+    }
+    chunk[index] = lowerBound;
+    chunk[index + 1] = upperBound;
+  }
+
+  private void added(int state) {
+    synchronized (stored) {
+      stored.set(state);
+      size += 1;
+    }
+  }
+
+  public void put(int state, Bounds bounds) {
+    set(state, bounds.lowerBound(), bounds.upperBound());
+  }
+
+  /**
+   * Intersects the stored bounds of the state with the given ones, i.e. only ever raises the lower
+   * and lowers the upper bound. The update of each bound is atomic, so concurrent updates of the
+   * same state never lose an improvement.
+   */
+  public void tighten(int state, double lowerBound, double upperBound) {
+    assert lowerBound <= upperBound : String.format("%s > %s", lowerBound, upperBound);
+    reserve(state);
+    double[] chunk = chunk(state);
+    int index = index(state);
+    double current;
+    while (true) {
+      current = (double) ELEMENT.getVolatile(chunk, index);
+      if (!Double.isNaN(current) && current >= lowerBound) {
+        break;
+      }
+      if (ELEMENT.compareAndSet(chunk, index, current, lowerBound)) {
+        if (Double.isNaN(current)) {
+          // Only one thread can replace the NaN marker
+          added(state);
+        }
+        break;
+      }
+    }
+
+    do {
+      current = (double) ELEMENT.getVolatile(chunk, index + 1);
+      if (!Double.isNaN(current) && current <= upperBound) {
+        break;
+      }
+    } while (!ELEMENT.compareAndSet(chunk, index + 1, current, upperBound));
+  }
+
+  public void remove(int state) {
+    double[] chunk = chunk(state);
+    if (chunk != null) {
+      int index = index(state);
+      if (!Double.isNaN(chunk[index])) {
+        synchronized (stored) {
+          stored.clear(state);
+          size -= 1;
+        }
+      }
+      chunk[index] = Double.NaN;
+      chunk[index + 1] = Double.NaN;
+    }
+  }
+
+  public void removeAll(IntCollection states) {
+    IntIterator iterator = states.iterator();
+    while (iterator.hasNext()) {
+      remove(iterator.nextInt());
+    }
+  }
+
+  public void clear() {
+    synchronized (stored) {
+      for (double[] chunk : chunks) {
+        Arrays.fill(chunk, Double.NaN);
+      }
+      stored.clear();
+      size = 0;
+    }
+  }
+
+  // Iterates over all states with stored bounds. The store must not be modified meanwhile.
+  public IntIterator states() {
+    return stored.iterator();
+  }
+
+  public int size() {
+    synchronized (stored) {
+      return size;
+    }
+  }
+
+  public BoundsStore copy() {
+    double[][] chunks = this.chunks.clone();
+    for (int chunk = 0; chunk < chunks.length; chunk++) {
+      chunks[chunk] = chunks[chunk].clone();
+    }
+    synchronized (stored) {
+      return new BoundsStore(defaultLower, defaultUpper, chunks, NatBitSets.copyOf(stored), size);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package de.tum.in.pet.implementation.reachability;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.tum.in.pet.sampler.SuccessorHeuristic;
+import de.tum.in.pet.sampler.UnboundedSamplerConfig;
+import de.tum.in.pet.util.Result;
+import de.tum.in.probmodels.util.PrismHelper;
+import java.io.IOException;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import parser.Values;
+import parser.ast.ModulesFile;
+import prism.Prism;
+import prism.PrismDevNullLog;
+import prism.PrismException;
+import simulator.ModulesFileModelGenerator;
+
+// Smoke test that sampling with several threads reaches the same verdicts as a single thread
+class ReachCheckerThreadsTest {
+  private static final double PRECISION = 1.0e-6;
+
+  private static Object solve(ModulesFile modulesFile, Prism prism, PrismQuery<?> query,
+      int threads) throws PrismException {
+    UnboundedSamplerConfig config = UnboundedSamplerConfig.builder().threads(threads).build();
+    Result<?, ?> result = ReachChecker.solve(new ModulesFileModelGenerator(modulesFile, prism),
+        modulesFile, prism, query, SuccessorHeuristic.WEIGHTED, PRECISION, config);
+    return getSingle(result);
+  }
+
+  private static <S> Object getSingle(Result<S, ?> result) {
+    assertEquals(1, result.states().size());
+    return result.get(result.states().iterator().next());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {2, 4})
+  void consensus(int threads) throws IOException, PrismException {
+    PrismHelper.PrismParseResult parse = PrismHelper.parse("data/models/consensus.2.prism",
+        "data/models/consensus.props", "K=2");
+    ModulesFile modulesFile = parse.modulesFile();
+    Values values = parse.constants().getPFConstantValues();
+    Prism prism = new Prism(new PrismDevNullLog());
+
+    // c1 (qualitative), c2 (minimum) and disagree (maximum), the others are reward properties
+    for (int property = 0; property < 3; property++) {
+      PrismQuery<?> query = PrismQuery.parse(parse.expressions().get(property), values,
+          PRECISION, false);
+      Object expected = solve(modulesFile, prism, query, 1);
+      Object actual = solve(modulesFile, prism, query, threads);
+      if (expected instanceof Double) {
+        // Both results are within the precision of the true value
+        assertEquals((Double) expected, (Double) actual, 2 * PRECISION, query.toString());
+      } else {
+        assertEquals(expected, actual, query.toString());
+      }
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package de.tum.in.pet.mecGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.tum.in.naturals.set.NatBitSet;
+import de.tum.in.naturals.set.NatBitSets;
+import de.tum.in.probmodels.graph.CsrGraph;
+import de.tum.in.probmodels.graph.EndComponentDecomposition;
+import de.tum.in.probmodels.graph.Mec;
+import de.tum.in.probmodels.graph.MecComponentAnalyser;
+import de.tum.in.probmodels.graph.ParallelSccDecomposition;
+import de.tum.in.probmodels.graph.SccDecomposition;
+import de.tum.in.probmodels.model.Action;
+import de.tum.in.probmodels.model.Distributions;
+import de.tum.in.probmodels.model.MarkovDecisionProcess;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+// Compares the parallel SCC and MEC decompositions against the sequential ones on random models
+class DecompositionDifferentialTest {
+  // Large enough that the whole model exceeds the sequential thresholds of the parallel searches
+  private static final int BLOCKS = 24;
+  private static final int MAX_BLOCK_SIZE = 1500;
+  private static final int TRANSIENT_STATES = 200;
+
+  private static ForkJoinPool pool;
+
+  @BeforeAll
+  static void createPool() {
+    pool = new ForkJoinPool(4);
+  }
+
+  @AfterAll
+  static void shutdownPool() {
+    pool.shutdown();
+  }
+
+  // Concatenates generated MECs, adds actions leading from one block to later ones (partially
+  // staying in the block) and transient states leading into the blocks.
+  private static MarkovDecisionProcess randomModel(long seed) {
+    Random random = new Random(seed);
+    MdpMecGenerator generator = new MdpMecGenerator(seed);
+    MarkovDecisionProcess model = new MarkovDecisionProcess();
+
+    int[] blockOffsets = new int[BLOCKS + 1];
+    for (int block = 0; block < BLOCKS; block++) {
+      int offset = blockOffsets[block];
+      int size = 1 + random.nextInt(MAX_BLOCK_SIZE);
+      MarkovDecisionProcess mec = generator.createMec(size);
+      model.addStates(size);
+      for (int state = 0; state < size; state++) {
+        for (Action action : mec.getActions(state)) {
+          model.addChoice(offset + state, Action.of(
+              action.distribution().map(successor -> offset + successor).build(), action.label()));
+        }
+      }
+      blockOffsets[block + 1] = offset + size;
+    }
+
+    int blockStates = blockOffsets[BLOCKS];
+    for (int i = 0; i < blockStates / 10; i++) {
+      int block = random.nextInt(BLOCKS - 1);
+      int state = blockOffsets[block] + random.nextInt(blockOffsets[block + 1] - blockOffsets[block]);
+      int target = blockOffsets[block + 1] + random.nextInt(blockStates - blockOffsets[block + 1]);
+      var builder = Distributions.defaultBuilder();
+      builder.add(target, 0.5d);
+      // Stays in the block with the remaining probability, but still leaves the MEC
+      builder.add(blockOffsets[block] + random.nextInt(blockOffsets[block + 1]
+          - blockOffsets[block]), 0.5d);
+      model.addChoice(state, Action.of(builder.scaled(), "leave"));
+    }
+
+    model.addStates(TRANSIENT_STATES);
+    for (int state = blockStates; state < blockStates + TRANSIENT_STATES; state++) {
+      var builder = Distributions.defaultBuilder();
+      builder.add(random.nextInt(blockStates), 1.0d);
+      model.addChoice(state, Action.of(builder.build(), "enter"));
+    }
+    model.addInitialState(blockStates);
+    return model;
+  }
+
+  // The decompositions may modify the restriction, hence a fresh set for each call
+  private static NatBitSet allStates(MarkovDecisionProcess model) {
+    return NatBitSets.ensureModifiable(NatBitSets.boundedFullSet(model.getNumStates()));
+  }
+
+  private static Set<IntSet> asSets(Collection<? extends IntSet> components) {
+    return components.stream().map(IntOpenHashSet::new).collect(Collectors.toSet());
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {1L, 2L, 3L})
+  void sccs(long seed) {
+    MarkovDecisionProcess model = randomModel(seed);
+    CsrGraph graph = CsrGraph.of(allStates(model),
+        (state, consumer) -> model.getSuccessors(state).forEachRemaining(consumer));
+
+    for (boolean includeTransient : new boolean[] {true, false}) {
+      List<NatBitSet> expected = SccDecomposition.computeSccs(graph, includeTransient);
+      List<NatBitSet> actual = ParallelSccDecomposition.computeSccs(graph, includeTransient, pool);
+      assertEquals(expected.size(), actual.size());
+      assertEquals(asSets(expected), asSets(actual));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {1L, 2L, 3L})
+  void mecs(long seed) {
+    MarkovDecisionProcess model = randomModel(seed);
+    List<Mec> expected = EndComponentDecomposition.computeComponents(model, allStates(model));
+    List<Mec> actual = EndComponentDecomposition.computeComponents(model, allStates(model), pool);
+    assertEquals(expected.size(), actual.size());
+    for (Mec mec : actual) {
+      int index = expected.indexOf(mec);
+      assertTrue(index >= 0, mec::toString);
+      assertEquals(expected.get(index).actions, mec.actions);
+    }
+
+    Set<IntSet> expectedStates = asSets(
+        expected.stream().map(mec -> mec.states).collect(Collectors.toList()));
+    assertEquals(expectedStates, asSets(
+        actual.stream().map(mec -> mec.states).collect(Collectors.toList())));
+    assertEquals(expectedStates,
+        asSets(new MecComponentAnalyser().findComponents(model, allStates(model))));
+    assertEquals(expectedStates,
+        asSets(new MecComponentAnalyser(pool).findComponents(model, allStates(model))));
+  }
+}